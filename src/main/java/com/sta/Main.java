@@ -74,5 +74,15 @@ public class Main {
         System.out.println("  --fail-on <SEVERITY>    Fail on severity: CRITICAL, HIGH, MEDIUM, LOW");
         System.out.println("  --min-score <SCORE>     Minimum quality score (0-100)");
         System.out.println("  -q, --quiet             Suppress output except errors");
+        System.out.println("  --base <REF>            Only analyze files changed since this Git ref");
+        System.out.println("  --head <REF>            Checked-out Git ref containing the changes (default: HEAD)");
+        System.out.println("  --diff <FILE>           Unified diff; --fail-on only counts issues on its changed lines");
+        System.out.println("  --shallow               Clone only the latest commit of one branch");
+        System.out.println("  --branch <NAME>         Branch to clone instead of the default branch");
+        System.out.println("  --sparse                Check out only source files");
+        System.out.println("  --mirror                Reuse a local mirror and fetch only new commits");
+        System.out.println("  --no-checkout           Read files from Git objects without a working tree");
+        System.out.println("  --no-cache              Analyze all files, ignoring cached results");
+        System.out.println("  --profile               Show the most expensive rules and files");
     }
 }
@@ -1,9 +1,13 @@
 package com.sta.cli;
 
 import com.sta.config.RuleConfiguration;
+import com.sta.core.analyzer.AnalysisStatistics;
+import com.sta.core.analyzer.RuleProfile;
 import com.sta.core.engine.AnalysisEngine;
 import com.sta.core.engine.AnalysisResult;
 import com.sta.core.engine.Severity;
+import com.sta.core.source.SourceInventory;
+import com.sta.core.source.SourceProvider;
 import com.sta.report.HtmlReportGenerator;
 import com.sta.util.QualityScoreCalculator;
 import com.sta.util.QualityScoreCalculator.QualityBreakdown;
@@ -16,7 +20,10 @@ import picocli.CommandLine.Option;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * CLI runner for headless analysis and CI/CD integration.
@@ -52,6 +59,36 @@ public class CliRunner implements Callable<Integer> {
     @Option(names = {"-q", "--quiet"}, description = "Suppress output except errors")
     private boolean quiet;
 
+    @Option(names = {"--base"}, description = "Only analyze files changed since this Git ref (e.g. origin/main)")
+    private String baseRef;
+
+    @Option(names = {"--head"}, description = "Git ref containing the changes, used with --base; must be the analyzed revision", defaultValue = "HEAD")
+    private String headRef;
+
+    @Option(names = {"--diff"}, description = "Unified diff file; --fail-on then only counts issues on changed lines")
+    private String diffFile;
+
+    @Option(names = {"--shallow"}, description = "Clone only the latest commit of one branch, without tags")
+    private boolean shallow;
+
+    @Option(names = {"--branch"}, description = "Branch to clone instead of the default branch")
+    private String branch;
+
+    @Option(names = {"--sparse"}, description = "Check out only source files (.java, .kt, .scala, .groovy)")
+    private boolean sparse;
+
+    @Option(names = {"--mirror"}, description = "Keep a local mirror under ~/.sta/mirrors and fetch only new commits")
+    private boolean mirror;
+
+    @Option(names = {"--no-checkout"}, description = "Read files from Git objects instead of checking out a working tree")
+    private boolean noCheckout;
+
+    @Option(names = {"--no-cache"}, description = "Analyze all files, ignoring cached results")
+    private boolean noCache;
+
+    @Option(names = {"--profile"}, description = "Measure rule execution times and show the most expensive rules")
+    private boolean profile;
+
     @Override
     public Integer call() {
         // Determine source
@@ -61,20 +98,51 @@ public class CliRunner implements Callable<Integer> {
             return 1;
         }
 
+        if (shallow && baseRef != null) {
+            System.err.println("Error: --shallow cannot be combined with --base, which needs history");
+            return 1;
+        }
+
         if (!quiet) {
             System.out.println("🔬 Static Code Analyzer v2.0.0");
             System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
             System.out.println("📂 Source: " + source);
         }
 
+        // Run analysis
+        AnalysisEngine engine = new AnalysisEngine();
+
         try {
-            // Run analysis
-            AnalysisEngine engine = new AnalysisEngine();
+            if (noCache) {
+                engine.setIssueCache(null);
+            }
+
+            if (baseRef != null) {
+                engine.setChangeScope(baseRef, headRef);
+            }
+
+            if (diffFile != null) {
+                engine.setDiffFile(Paths.get(diffFile));
+            }
+
+            engine.setRetrievalOptions(buildRetrievalOptions());
+            engine.setProfiling(profile);
 
             if (!quiet) {
                 engine.onStatus(status -> System.out.println("⏳ " + status));
             }
 
+            // Without change information every issue counts, so the gate can report its first hit early
+            if (failOn != null && !quiet && baseRef == null && diffFile == null) {
+                Severity failSeverity = Severity.fromString(failOn);
+                AtomicBoolean reported = new AtomicBoolean();
+                engine.onIssue(issue -> {
+                    if (issue.getSeverity().getWeight() >= failSeverity.getWeight() && reported.compareAndSet(false, true)) {
+                        System.out.println("⚠️  Quality gate will fail: " + issue);
+                    }
+                });
+            }
+
             AnalysisResult result = engine.analyze(source).join();
             QualityBreakdown breakdown = QualityScoreCalculator.calculateBreakdown(result);
 
@@ -98,7 +166,8 @@ public class CliRunner implements Callable<Integer> {
                 Severity failSeverity = Severity.fromString(failOn);
                 long count = countIssuesAtOrAbove(result, failSeverity);
                 if (count > 0) {
-                    System.err.println("\n❌ FAILED: Found " + count + " issues at or above " + failSeverity.getDisplayName());
+                    System.err.println("\n❌ FAILED: Found " + count + (result.hasChangedLines() ? " new" : "")
+                            + " issues at or above " + failSeverity.getDisplayName());
                     return 2;
                 }
             }
@@ -119,17 +188,57 @@ public class CliRunner implements Callable<Integer> {
             System.err.println("❌ Analysis failed: " + e.getMessage());
             logger.error("CLI analysis failed", e);
             return 1;
+        } finally {
+            engine.shutdown();
         }
     }
 
+    private SourceProvider.RetrievalOptions buildRetrievalOptions() {
+        SourceProvider.RetrievalOptions.Builder options = SourceProvider.RetrievalOptions.builder();
+        if (shallow) {
+            options.shallow();
+        }
+        if (branch != null) {
+            options.branch(branch);
+        }
+        if (sparse) {
+            options.sparseExtensions(SourceInventory.getSourceExtensions());
+        }
+        options.useMirror(mirror);
+        options.objectDatabase(noCheckout);
+        return options.build();
+    }
+
     private void printSummary(AnalysisResult result, QualityBreakdown breakdown) {
         System.out.println();
         System.out.println("📊 ANALYSIS SUMMARY");
         System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         System.out.println("   Project:     " + result.getProjectName());
+        if (result.isPartial()) {
+            System.out.println("   Scope:       changed files " + result.getScope());
+        }
         System.out.println("   Lines:       " + String.format("%,d", breakdown.linesOfCode()));
         System.out.println("   Files:       " + result.getFileCount().values().stream()
                 .mapToInt(Integer::intValue).sum());
+        AnalysisStatistics statistics = result.getStatistics();
+        for (String cache : statistics.getCaches()) {
+            System.out.println("   Cache:       " + cache + " " + statistics.getCacheHits(cache) + " hits, "
+                    + statistics.getCacheMisses(cache) + " misses");
+        }
+        Map<String, Integer> skippedByReason = new TreeMap<>();
+        for (String reason : statistics.getSkippedFiles().values()) {
+            skippedByReason.merge(reason, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> skipped : skippedByReason.entrySet()) {
+            System.out.println("   Skipped:     " + skipped.getValue() + " files (" + skipped.getKey() + ")");
+        }
+        // Generated files are expected to be skipped; the others point at files worth a look
+        for (Map.Entry<String, String> skipped : statistics.getSkippedFiles().entrySet()) {
+            if (!AnalysisStatistics.SKIPPED_GENERATED.equals(skipped.getValue())) {
+                System.out.println("                " + Paths.get(skipped.getKey()).getFileName()
+                        + " (skipped: " + skipped.getValue() + ")");
+            }
+        }
         System.out.println();
         System.out.println("📈 QUALITY SCORE");
         System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -146,12 +255,47 @@ public class CliRunner implements Callable<Integer> {
         System.out.println("   ⚪ Info:      " + breakdown.infoCount());
         System.out.println("   ─────────────────");
         System.out.println("   📋 Total:     " + breakdown.totalIssues());
+        if (result.hasChangedLines()) {
+            System.out.println("   🆕 New code:  " + result.getNewIssueSummary().getTotal());
+        }
+
+        RuleProfile ruleProfile = result.getStatistics().getProfile();
+        if (!ruleProfile.isEmpty()) {
+            printProfile(ruleProfile);
+        }
+    }
+
+    private void printProfile(RuleProfile ruleProfile) {
+        long ruleNanos = ruleProfile.getRuleNanos();
+        System.out.println();
+        System.out.println("⏱️  MOST EXPENSIVE RULES");
+        System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        System.out.println("   Parsing:     " + millis(ruleProfile.getParseNanos()));
+        System.out.println("   Rules:       " + millis(ruleNanos));
+        for (RuleProfile.RuleTiming timing : ruleProfile.getTopRules(10)) {
+            System.out.println(String.format("   %-40s %10s  cpu %10s  %5.1f%%", timing.getRule(),
+                    millis(timing.getWallNanos()), millis(timing.getCpuNanos()),
+                    ruleNanos > 0 ? 100.0 * timing.getWallNanos() / ruleNanos : 0.0));
+        }
+        System.out.println("   By rule set:");
+        for (Map.Entry<String, Long> entry : ruleProfile.getWallNanosByRuleSet().entrySet()) {
+            System.out.println(String.format("   %-40s %10s", entry.getKey(), millis(entry.getValue())));
+        }
+        System.out.println("   Slowest files:");
+        for (RuleProfile.FileTiming timing : ruleProfile.getTopFiles(5)) {
+            System.out.println(String.format("   %10s  %s", millis(timing.getTotalNanos()),
+                    Paths.get(timing.getFile()).getFileName()));
+        }
+        System.out.println("   Rule-chain rules run as separate tree visits while profiling.");
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%,d ms", nanos / 1_000_000);
     }
 
     private long countIssuesAtOrAbove(AnalysisResult result, Severity threshold) {
-        return result.getIssues().stream()
-                .filter(i -> i.getSeverity().getWeight() >= threshold.getWeight())
-                .count();
+        // Only issues on changed lines gate a change; legacy issues do not
+        return result.getNewIssueSummary().getCountAtOrAbove(threshold);
     }
 
     public static void main(String[] args) {
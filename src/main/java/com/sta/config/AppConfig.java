@@ -35,6 +35,10 @@ public class AppConfig {
     private boolean enablePmd = true;
     private boolean enableSpotBugs = true;
     private boolean enableCheckstyle = true;
+    private boolean enableAnalysisCache = true;
+    private long maxWorkspaceBytes = 2L * 1024 * 1024 * 1024;
+    private long maxFileBytes = 2L * 1024 * 1024;
+    private int fileTimeoutSeconds = 60;
 
     private AppConfig() {
         load();
@@ -62,6 +66,10 @@ public class AppConfig {
                 this.enablePmd = loaded.enablePmd;
                 this.enableSpotBugs = loaded.enableSpotBugs;
                 this.enableCheckstyle = loaded.enableCheckstyle;
+                this.enableAnalysisCache = loaded.enableAnalysisCache;
+                this.maxWorkspaceBytes = loaded.maxWorkspaceBytes;
+                this.maxFileBytes = loaded.maxFileBytes;
+                this.fileTimeoutSeconds = loaded.fileTimeoutSeconds;
 
                 logger.info("Loaded config from: {}", configPath);
             }
@@ -82,8 +90,15 @@ public class AppConfig {
     }
 
     private Path getConfigPath() {
+        return getConfigDirectory().resolve(CONFIG_FILE);
+    }
+
+    /**
+     * Returns the per-user directory holding configuration and caches.
+     */
+    public static Path getConfigDirectory() {
         String userHome = System.getProperty("user.home");
-        return Paths.get(userHome, CONFIG_DIR, CONFIG_FILE);
+        return Paths.get(userHome, CONFIG_DIR);
     }
 
     // Getters and setters
@@ -112,4 +127,27 @@ public class AppConfig {
 
     public boolean isEnableCheckstyle() { return enableCheckstyle; }
     public void setEnableCheckstyle(boolean enableCheckstyle) { this.enableCheckstyle = enableCheckstyle; }
+
+    public boolean isEnableAnalysisCache() { return enableAnalysisCache; }
+    public void setEnableAnalysisCache(boolean enableAnalysisCache) { this.enableAnalysisCache = enableAnalysisCache; }
+
+    /**
+     * Returns the disk budget for retrieved sources kept for reuse; older ones are evicted beyond it.
+     */
+    public long getMaxWorkspaceBytes() { return maxWorkspaceBytes; }
+    public void setMaxWorkspaceBytes(long maxWorkspaceBytes) { this.maxWorkspaceBytes = maxWorkspaceBytes; }
+
+    /**
+     * Returns the size above which a file is not analyzed, or 0 for no limit.
+     */
+    public long getMaxFileBytes() { return maxFileBytes; }
+    public void setMaxFileBytes(long maxFileBytes) { this.maxFileBytes = maxFileBytes; }
+
+    /**
+     * Returns the time after which the analysis of a single file is abandoned, or 0 for no limit.
+     * Checked between rules only: parsing and PMD's rule chain are never cut short, so the limit
+     * bounds the rules that run after them.
+     */
+    public int getFileTimeoutSeconds() { return fileTimeoutSeconds; }
+    public void setFileTimeoutSeconds(int fileTimeoutSeconds) { this.fileTimeoutSeconds = fileTimeoutSeconds; }
 }
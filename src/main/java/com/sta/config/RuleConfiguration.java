@@ -8,8 +8,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 /**
@@ -27,6 +30,9 @@ public class RuleConfiguration {
     private Set<String> disabledRules = new HashSet<>();
     private Map<String, String> severityOverrides = new HashMap<>();
     private Map<String, Map<String, Object>> ruleProperties = new HashMap<>();
+    private boolean excludeGeneratedCode = true;
+    private List<String> includePatterns = new ArrayList<>();
+    private List<String> excludePatterns = new ArrayList<>();
     
     public RuleConfiguration() {
         // Initialize with default rule sets
@@ -59,6 +65,31 @@ public class RuleConfiguration {
         this.ruleProperties = ruleProperties; 
     }
     
+    /**
+     * Returns true if generated and vendored files are left out of the analysis.
+     */
+    public boolean isExcludeGeneratedCode() { return excludeGeneratedCode; }
+    public void setExcludeGeneratedCode(boolean excludeGeneratedCode) {
+        this.excludeGeneratedCode = excludeGeneratedCode;
+    }
+    
+    /**
+     * Returns globs of the files to analyze, relative to the source root; empty to analyze all files.
+     */
+    public List<String> getIncludePatterns() { return includePatterns; }
+    public void setIncludePatterns(List<String> includePatterns) {
+        this.includePatterns = includePatterns;
+    }
+    
+    /**
+     * Returns .gitignore-style patterns of files and directories to skip, applied after the
+     * tree's own .gitignore and .staignore.
+     */
+    public List<String> getExcludePatterns() { return excludePatterns; }
+    public void setExcludePatterns(List<String> excludePatterns) {
+        this.excludePatterns = excludePatterns;
+    }
+    
     // Fluent API
     public RuleConfiguration enableRuleSet(String ruleSet) {
         enabledRuleSets.add(ruleSet);
@@ -80,6 +111,16 @@ public class RuleConfiguration {
         return this;
     }
     
+    public RuleConfiguration include(String pattern) {
+        includePatterns.add(pattern);
+        return this;
+    }
+    
+    public RuleConfiguration exclude(String pattern) {
+        excludePatterns.add(pattern);
+        return this;
+    }
+    
     public RuleConfiguration setRuleProperty(String ruleName, String property, Object value) {
         ruleProperties.computeIfAbsent(ruleName, k -> new HashMap<>()).put(property, value);
         return this;
@@ -93,12 +134,41 @@ public class RuleConfiguration {
         return Optional.ofNullable(severityOverrides.get(ruleName));
     }
     
+    /**
+     * Returns a stable hash of the settings that decide which issues a file produces: rule sets,
+     * disabled rules, severities and rule properties. Include and exclude patterns and the
+     * generated-code switch only choose which files are analyzed, so they are left out and changing
+     * them keeps the caches keyed by this fingerprint valid. Caches add the analyzer version themselves.
+     */
+    public String resultsFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ruleSets=").append(new TreeSet<>(enabledRuleSets)).append('\n');
+        sb.append("disabled=").append(new TreeSet<>(disabledRules)).append('\n');
+        sb.append("severities=").append(new TreeMap<>(severityOverrides)).append('\n');
+        sb.append("properties=");
+        for (Map.Entry<String, Map<String, Object>> entry : new TreeMap<>(ruleProperties).entrySet()) {
+            sb.append(entry.getKey()).append(new TreeMap<>(entry.getValue())).append(';');
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Loads configuration from a JSON file.
      */
     public static RuleConfiguration fromFile(Path configPath) throws IOException {
         logger.info("Loading rule configuration from: {}", configPath);
-        String content = new String(Files.readAllBytes(configPath), java.nio.charset.StandardCharsets.UTF_8);
+        String content = new String(Files.readAllBytes(configPath), StandardCharsets.UTF_8);
         return objectMapper.readValue(content, RuleConfiguration.class);
     }
     
@@ -0,0 +1,100 @@
+package com.sta.core.analyzer;
+
+import com.sta.config.RuleConfiguration;
+import com.sta.core.source.SourceInventory;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Everything an analyzer needs for a single run.
+ * Created once per analysis by the engine and shared by all analyzers.
+ */
+public class AnalysisContext {
+
+    private final SourceInventory inventory;
+    private final RuleConfiguration ruleConfiguration;
+    private final Consumer<Double> progressCallback;
+    private final Instant startedAt;
+    private final AnalysisStatistics statistics;
+    private final boolean profiling;
+
+    private AnalysisContext(Builder builder) {
+        this.inventory = Objects.requireNonNull(builder.inventory, "Inventory cannot be null");
+        this.ruleConfiguration = builder.ruleConfiguration != null
+                ? builder.ruleConfiguration : RuleConfiguration.defaults();
+        this.progressCallback = builder.progressCallback != null ? builder.progressCallback : progress -> {};
+        this.startedAt = builder.startedAt != null ? builder.startedAt : Instant.now();
+        this.statistics = builder.statistics != null ? builder.statistics : new AnalysisStatistics();
+        this.profiling = builder.profiling;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Getters
+    public SourceInventory getInventory() { return inventory; }
+    public RuleConfiguration getRuleConfiguration() { return ruleConfiguration; }
+    public Consumer<Double> getProgressCallback() { return progressCallback; }
+
+    /**
+     * Returns the start time of the run, used as the detection time of all its issues.
+     */
+    public Instant getStartedAt() { return startedAt; }
+
+    /**
+     * Returns the counters of the run, shared by all copies of this context.
+     */
+    public AnalysisStatistics getStatistics() { return statistics; }
+
+    /**
+     * Returns true if analyzers should record rule execution times into the statistics' profile.
+     */
+    public boolean isProfiling() { return profiling; }
+
+    /**
+     * Returns a copy of this context reporting progress to another callback.
+     */
+    public AnalysisContext withProgressCallback(Consumer<Double> callback) {
+        return toBuilder().progressCallback(callback).build();
+    }
+
+    /**
+     * Returns a copy of this context restricted to another inventory.
+     */
+    public AnalysisContext withInventory(SourceInventory inventory) {
+        return toBuilder().inventory(inventory).build();
+    }
+
+    private Builder toBuilder() {
+        return new Builder()
+                .inventory(inventory)
+                .ruleConfiguration(ruleConfiguration)
+                .progressCallback(progressCallback)
+                .startedAt(startedAt)
+                .statistics(statistics)
+                .profiling(profiling);
+    }
+
+    public static class Builder {
+        private SourceInventory inventory;
+        private RuleConfiguration ruleConfiguration;
+        private Consumer<Double> progressCallback;
+        private Instant startedAt;
+        private AnalysisStatistics statistics;
+        private boolean profiling;
+
+        public Builder inventory(SourceInventory inventory) { this.inventory = inventory; return this; }
+        public Builder ruleConfiguration(RuleConfiguration ruleConfiguration) { this.ruleConfiguration = ruleConfiguration; return this; }
+        public Builder progressCallback(Consumer<Double> progressCallback) { this.progressCallback = progressCallback; return this; }
+        public Builder startedAt(Instant startedAt) { this.startedAt = startedAt; return this; }
+        public Builder statistics(AnalysisStatistics statistics) { this.statistics = statistics; return this; }
+        public Builder profiling(boolean profiling) { this.profiling = profiling; return this; }
+
+        public AnalysisContext build() {
+            return new AnalysisContext(this);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sta.core.analyzer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe counters collected while analyzers run, such as cache hits and misses, files that
+ * were skipped, and the rule profile of profiling runs.
+ * One instance is shared by all analyzers of a run and ends up in the result.
+ */
+public class AnalysisStatistics {
+
+    /** The file exceeded the per-file time budget; its partial results were dropped. */
+    public static final String SKIPPED_TIMEOUT = "timeout";
+    /** The file exceeded the per-file size budget and was not analyzed. */
+    public static final String SKIPPED_SIZE = "size";
+    /** The file is generated or vendored code, which the rule configuration excludes. */
+    public static final String SKIPPED_GENERATED = "generated";
+    /** The file timed out in an earlier run and did not change since. */
+    public static final String SKIPPED_QUARANTINED = "quarantined";
+    /** The analyzer could not process the file, e.g. because it does not parse. */
+    public static final String SKIPPED_ERROR = "error";
+
+    private final Map<String, CacheCounter> caches = new ConcurrentSkipListMap<>();
+    private final Map<String, String> skippedFiles = new ConcurrentSkipListMap<>();
+    private final RuleProfile profile = new RuleProfile();
+
+    /**
+     * Records a file whose results came from the named cache.
+     */
+    public void recordCacheHit(String cache) {
+        counter(cache).hits.incrementAndGet();
+    }
+
+    /**
+     * Records a file the named cache could not answer, so it was analyzed.
+     */
+    public void recordCacheMiss(String cache) {
+        counter(cache).misses.incrementAndGet();
+    }
+
+    /**
+     * Returns the names of all caches that were consulted, in alphabetical order.
+     */
+    public Set<String> getCaches() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public int getCacheHits(String cache) {
+        CacheCounter counter = caches.get(cache);
+        return counter != null ? counter.hits.get() : 0;
+    }
+
+    public int getCacheMisses(String cache) {
+        CacheCounter counter = caches.get(cache);
+        return counter != null ? counter.misses.get() : 0;
+    }
+
+    /**
+     * Records a file whose results are missing, with the reason, e.g. {@link #SKIPPED_TIMEOUT}.
+     */
+    public void recordSkippedFile(String file, String reason) {
+        skippedFiles.put(file, reason);
+    }
+
+    /**
+     * Returns the skipped files by absolute path, with the reason each was skipped.
+     */
+    public Map<String, String> getSkippedFiles() {
+        return Collections.unmodifiableMap(skippedFiles);
+    }
+
+    public boolean isSkipped(String file) {
+        return skippedFiles.containsKey(file);
+    }
+
+    /**
+     * Returns the rule execution times; empty unless the run was profiled.
+     */
+    public RuleProfile getProfile() {
+        return profile;
+    }
+
+    private CacheCounter counter(String cache) {
+        return caches.computeIfAbsent(cache, name -> new CacheCounter());
+    }
+
+    private static final class CacheCounter {
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+    }
+}
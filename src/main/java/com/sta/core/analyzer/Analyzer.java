@@ -2,6 +2,8 @@ package com.sta.core.analyzer;
 
 import com.sta.config.RuleConfiguration;
 import com.sta.core.engine.Issue;
+import com.sta.core.engine.IssueSink;
+import com.sta.core.source.SourceInventory;
 
 import java.nio.file.Path;
 import java.util.List;
@@ -28,11 +30,54 @@ public interface Analyzer {
      */
     boolean isAvailable();
 
+    /**
+     * Returns a version string that changes whenever the analyzer may report different issues.
+     * Used to invalidate cached results.
+     */
+    default String getVersion() {
+        return "1";
+    }
+
+    /**
+     * Checks if this analyzer looks at the given file.
+     * Results are cached per accepted file.
+     */
+    default boolean accepts(SourceInventory.SourceFile file) {
+        return true;
+    }
+
     /**
      * Analyzes the source code at the given path.
      */
     List<Issue> analyze(Path sourcePath, RuleConfiguration config, Consumer<Double> progressCallback);
 
+    /**
+     * Analyzes the files of a prepared source inventory.
+     * Analyzers that can work from the inventory should override this to avoid walking the tree again.
+     */
+    default List<Issue> analyze(AnalysisContext context) {
+        return analyze(context.getInventory().getRoot(), context.getRuleConfiguration(),
+                context.getProgressCallback());
+    }
+
+    /**
+     * Analyzes the files of a prepared source inventory and publishes issues to the sink as they are found.
+     * The sink may block to apply backpressure. Analyzers that find issues incrementally should override
+     * this so that results flow before the whole analysis has finished.
+     * Each file the analyzer finished is reported through {@link IssueSink#fileCompleted(String)};
+     * a failed analysis throws instead of returning normally.
+     */
+    default void analyze(AnalysisContext context, IssueSink sink) {
+        for (Issue issue : analyze(context)) {
+            sink.accept(issue);
+        }
+        for (SourceInventory.SourceFile file : context.getInventory().getFiles()) {
+            if (accepts(file)) {
+                sink.fileCompleted(file.getPath().toAbsolutePath().toString());
+            }
+        }
+    }
+
     /**
      * Returns a description of what this analyzer checks.
      */
@@ -0,0 +1,176 @@
+package com.sta.core.analyzer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sta.config.AppConfig;
+import com.sta.core.source.SourceInventory.SourceFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent list of files that exceeded an analyzer's time budget.
+ * Quarantined files are skipped by later runs until their content changes or the time budget is
+ * raised above the one they timed out under, so one pathological file does not cost the full
+ * timeout on every run. Released entries and entries older than 30 days are pruned; delete the
+ * file to clear the list. Updates are merged under a file lock, so concurrent runs keep each
+ * other's entries.
+ */
+public class FileQuarantine {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileQuarantine.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String QUARANTINE_FILE = "quarantine.json";
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    // A JVM cannot lock the same file twice, so instances on one file take turns
+    private static final Object FILE_LOCK = new Object();
+
+    private final Path file;
+    private Map<String, QuarantineEntry> entries;
+    private final Map<String, QuarantineEntry> added = new HashMap<>();
+    private final Set<String> released = new HashSet<>();
+
+    public FileQuarantine(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the quarantine list in the user's configuration directory.
+     */
+    public static FileQuarantine openDefault() {
+        return new FileQuarantine(AppConfig.getConfigDirectory().resolve(QUARANTINE_FILE));
+    }
+
+    /**
+     * Returns true if the file was quarantined for the analyzer with the same content, under a time
+     * budget at least as large as the current one. Entries that no longer apply are released.
+     */
+    public synchronized boolean isQuarantined(String analyzerId, SourceFile source, int timeoutSeconds) {
+        String key = keyOf(analyzerId, source);
+        QuarantineEntry entry = load().get(key);
+        if (entry == null) {
+            return false;
+        }
+        // Only files with an entry are hashed
+        boolean applies = timeoutSeconds > 0 && timeoutSeconds <= entry.timeoutSeconds
+                && Objects.equals(entry.contentHash, hashOf(source));
+        if (!applies) {
+            entries.remove(key);
+            added.remove(key);
+            released.add(key);
+            save();
+        }
+        return applies;
+    }
+
+    /**
+     * Quarantines a file for the analyzer, recording the time budget it exceeded.
+     */
+    public synchronized void add(String analyzerId, SourceFile source, String reason, int timeoutSeconds) {
+        String contentHash = hashOf(source);
+        if (contentHash == null) {
+            return;
+        }
+        QuarantineEntry entry = new QuarantineEntry();
+        entry.path = source.getPath().toAbsolutePath().toString();
+        entry.contentHash = contentHash;
+        entry.reason = reason;
+        entry.timeoutSeconds = timeoutSeconds;
+        entry.recordedAt = System.currentTimeMillis();
+
+        String key = keyOf(analyzerId, source);
+        load().put(key, entry);
+        added.put(key, entry);
+        released.remove(key);
+        save();
+    }
+
+    private String keyOf(String analyzerId, SourceFile source) {
+        return analyzerId + ":" + source.getPath().toAbsolutePath();
+    }
+
+    private static String hashOf(SourceFile source) {
+        try {
+            return source.getContentHash();
+        } catch (IOException e) {
+            logger.debug("Cannot hash {}: {}", source, e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, QuarantineEntry> load() {
+        if (entries == null) {
+            entries = read();
+        }
+        return entries;
+    }
+
+    private Map<String, QuarantineEntry> read() {
+        Map<String, QuarantineEntry> result = new TreeMap<>();
+        if (Files.exists(file)) {
+            try {
+                result.putAll(objectMapper.readValue(file.toFile(),
+                        new TypeReference<Map<String, QuarantineEntry>>() {}));
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable quarantine list {}: {}", file, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges this instance's changes into the current list on disk, drops entries that are too old,
+     * and writes the list back.
+     */
+    private void save() {
+        synchronized (FILE_LOCK) {
+            try {
+                Files.createDirectories(file.getParent());
+                Path lockFile = file.resolveSibling(QUARANTINE_FILE + ".lock");
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock lock = channel.lock()) {
+                    Map<String, QuarantineEntry> merged = read();
+                    merged.keySet().removeAll(released);
+                    merged.putAll(added);
+                    prune(merged);
+
+                    Path temp = Files.createTempFile(file.getParent(), QUARANTINE_FILE, ".tmp");
+                    objectMapper.writeValue(temp.toFile(), merged);
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    entries = merged;
+                    added.clear();
+                    released.clear();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to write quarantine list {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static void prune(Map<String, QuarantineEntry> entries) {
+        // Files read from Git objects have no path on disk, so age is the only general criterion
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now - entry.recordedAt > MAX_AGE_MILLIS);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class QuarantineEntry {
+        public String path;
+        public String contentHash;
+        public String reason;
+        public int timeoutSeconds;
+        public long recordedAt;
+    }
+}
@@ -0,0 +1,84 @@
+package com.sta.core.analyzer;
+
+import com.sta.config.AppConfig;
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * PMD's incremental analysis cache for one source tree, counting hits and misses.
+ * Each source root gets its own directory under ~/.sta/pmd-cache. The cache file name contains
+ * the rule configuration's results fingerprint and the PMD version, so a change of either starts
+ * a new cache, and files of other configurations or versions are removed.
+ */
+class PmdAnalysisCache extends FileAnalysisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PmdAnalysisCache.class);
+
+    private static final String CACHE_DIR = "pmd-cache";
+    static final String STATISTICS_NAME = "pmd";
+
+    private final AnalysisStatistics statistics;
+
+    private PmdAnalysisCache(File cacheFile, AnalysisStatistics statistics) {
+        super(cacheFile);
+        this.statistics = statistics;
+    }
+
+    /**
+     * Opens the cache of a source root for the given rule configuration fingerprint.
+     */
+    static PmdAnalysisCache open(Path sourceRoot, String ruleFingerprint, AnalysisStatistics statistics)
+            throws IOException {
+        Path directory = AppConfig.getConfigDirectory().resolve(CACHE_DIR)
+                .resolve(hash(sourceRoot.toAbsolutePath().normalize().toString()));
+        Files.createDirectories(directory);
+
+        String fileName = ruleFingerprint.substring(0, 16) + "-" + PMD.VERSION + ".cache";
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "*.cache")) {
+            for (Path file : stale) {
+                if (!file.getFileName().toString().equals(fileName)) {
+                    logger.debug("Removing outdated PMD cache {}", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        return new PmdAnalysisCache(directory.resolve(fileName).toFile(), statistics);
+    }
+
+    @Override
+    public boolean isUpToDate(File sourceFile) {
+        boolean upToDate = super.isUpToDate(sourceFile);
+        if (upToDate) {
+            statistics.recordCacheHit(STATISTICS_NAME);
+        } else {
+            statistics.recordCacheMiss(STATISTICS_NAME);
+        }
+        return upToDate;
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
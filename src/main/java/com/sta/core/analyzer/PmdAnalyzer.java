@@ -1,8 +1,13 @@
 package com.sta.core.analyzer;
 
+import com.sta.config.AppConfig;
 import com.sta.config.RuleConfiguration;
 import com.sta.core.engine.Issue;
+import com.sta.core.engine.IssueCollector;
+import com.sta.core.engine.IssueSink;
 import com.sta.core.engine.Severity;
+import com.sta.core.source.ExclusionPolicy;
+import com.sta.core.source.SourceInventory;
 import net.sourceforge.pmd.*;
 import net.sourceforge.pmd.renderers.AbstractIncrementingRenderer;
 import net.sourceforge.pmd.util.datasource.DataSource;
@@ -12,10 +17,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -25,6 +34,16 @@ public class PmdAnalyzer implements Analyzer {
 
     private static final Logger logger = LoggerFactory.getLogger(PmdAnalyzer.class);
 
+    private final FileQuarantine quarantine;
+
+    public PmdAnalyzer() {
+        this(FileQuarantine.openDefault());
+    }
+
+    public PmdAnalyzer(FileQuarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
     @Override
     public String getId() {
         return "pmd";
@@ -40,6 +59,16 @@ public class PmdAnalyzer implements Analyzer {
         return "Checks for code style, best practices, and potential bugs";
     }
 
+    @Override
+    public String getVersion() {
+        return PMD.VERSION;
+    }
+
+    @Override
+    public boolean accepts(SourceInventory.SourceFile file) {
+        return "java".equals(file.getExtension());
+    }
+
     @Override
     public boolean isAvailable() {
         try {
@@ -52,126 +81,271 @@ public class PmdAnalyzer implements Analyzer {
 
     @Override
     public List<Issue> analyze(Path sourcePath, RuleConfiguration config, Consumer<Double> progressCallback) {
-        List<Issue> issues = new ArrayList<>();
-
         try {
-            logger.info("Running PMD analysis on: {}", sourcePath);
+            SourceInventory inventory = SourceInventory.scan(sourcePath, ExclusionPolicy.load(sourcePath,
+                    config.getIncludePatterns(), config.getExcludePatterns()));
+            return analyze(AnalysisContext.builder()
+                    .inventory(inventory)
+                    .ruleConfiguration(config)
+                    .progressCallback(progressCallback)
+                    .build());
+        } catch (IOException e) {
+            logger.error("PMD analysis failed: {}", e.getMessage(), e);
+            progressCallback.accept(1.0);
+            return new ArrayList<>();
+        }
+    }
 
-            // Collect Java files
-            List<DataSource> dataSources = collectJavaFiles(sourcePath);
-            logger.info("Found {} Java files to analyze", dataSources.size());
+    @Override
+    public List<Issue> analyze(AnalysisContext context) {
+        IssueCollector collector = new IssueCollector();
+        analyze(context, collector);
+        return collector.toList();
+    }
 
-            if (dataSources.isEmpty()) {
-                logger.warn("No Java files found in: {}", sourcePath);
-                progressCallback.accept(1.0);
-                return issues;
-            }
+    /**
+     * Runs PMD and publishes each file's violations as soon as PMD reports them.
+     * Files are reported as completed only once PMD has finished; a failed or interrupted run throws.
+     */
+    @Override
+    public void analyze(AnalysisContext context, IssueSink sink) {
+        Path sourcePath = context.getInventory().getRoot();
+        RuleConfiguration config = context.getRuleConfiguration();
+        Consumer<Double> progressCallback = context.getProgressCallback();
+
+        logger.info("Running PMD analysis on: {}", sourcePath);
+
+        // Collect Java files, except those over the size budget or quarantined
+        Map<String, SourceInventory.SourceFile> filesByName = new HashMap<>();
+        List<DataSource> dataSources = collectJavaFiles(context, filesByName);
+        logger.info("Found {} Java files to analyze", dataSources.size());
+
+        if (dataSources.isEmpty()) {
+            logger.warn("No Java files found in: {}", sourcePath);
+            progressCallback.accept(1.0);
+            return;
+        }
 
-            // Configure PMD
-            PMDConfiguration pmdConfig = new PMDConfiguration();
-            pmdConfig.setSourceEncoding("UTF-8");
-            pmdConfig.setThreads(Runtime.getRuntime().availableProcessors());
-            pmdConfig.setMinimumPriority(RulePriority.LOW);
-
-            // Add rule sets from configuration
-            StringBuilder ruleSets = new StringBuilder();
-            for (String ruleSet : config.getEnabledRuleSets()) {
-                if (ruleSets.length() > 0) {
-                    ruleSets.append(",");
-                }
-                ruleSets.append(ruleSet);
-            }
-            pmdConfig.setRuleSets(ruleSets.toString());
+        // Configure PMD
+        PMDConfiguration pmdConfig = new PMDConfiguration();
+        pmdConfig.setSourceEncoding("UTF-8");
+        pmdConfig.setThreads(Runtime.getRuntime().availableProcessors());
+        pmdConfig.setMinimumPriority(RulePriority.LOW);
+        configureAnalysisCache(pmdConfig, context, dataSources);
 
-            // Create our custom renderer to collect violations
-            IssueCollectingRenderer renderer = new IssueCollectingRenderer(issues, sourcePath, progressCallback, dataSources.size());
+        // Rule times are only measured when asked for, the wrappers cost a little on every rule
+        PmdProfiler profiler = context.isProfiling()
+                ? new PmdProfiler(context.getStatistics().getProfile()) : null;
 
-            // Run PMD
-            try {
-                RuleSetFactory ruleSetFactory = RulesetsFactoryUtils.defaultFactory();
-                RuleSets ruleSetsCombined = ruleSetFactory.createRuleSets(pmdConfig.getRuleSets());
-
-                RuleContext ctx = new RuleContext();
-
-                int processed = 0;
-                for (DataSource dataSource : dataSources) {
-                    String fileName = dataSource.getNiceFileName(false, null);
-                    try {
-                        ctx.setSourceCodeFile(new File(fileName));
-
-                        // Parse and analyze
-                        for (RuleSet ruleSet : ruleSetsCombined.getAllRuleSets()) {
-                            PMD.processFiles(pmdConfig, ruleSetFactory, Arrays.asList(dataSource), ctx,
-                                    Collections.singletonList(renderer));
-                        }
-                    } catch (Exception e) {
-                        logger.debug("Error analyzing {}: {}", fileName, e.getMessage());
-                    }
-
-                    processed++;
-                    progressCallback.accept((double) processed / dataSources.size() * 0.95);
-                }
+        int timeoutSeconds = AppConfig.getInstance().getFileTimeoutSeconds();
+        PmdFileBudget budget = timeoutSeconds > 0
+                ? new PmdFileBudget(TimeUnit.SECONDS.toNanos(timeoutSeconds), pmdConfig.getAnalysisCache()) : null;
 
-                renderer.end();
+        // Create our custom renderer to collect violations
+        IssueCollectingRenderer renderer = new IssueCollectingRenderer(sink, progressCallback,
+                dataSources.size(), context.getStartedAt(), resolveSeverityOverrides(config), profiler, budget);
 
-            } catch (Exception e) {
-                logger.error("PMD rule set loading failed: {}", e.getMessage(), e);
+        // Run PMD once over the whole file set. PMD parses every file a single time,
+        // applies all configured rule sets to the shared AST and spreads the work
+        // over the configured number of threads.
+        try {
+            List<RuleSet> ruleSets = PmdRuleSets.forConfiguration(config);
+            if (profiler != null) {
+                ruleSets = profiler.instrument(ruleSets);
+            }
+            if (budget != null) {
+                // Outermost, so skipped rules are not measured
+                ruleSets = budget.instrument(ruleSets);
             }
 
-            logger.info("PMD analysis completed with {} issues", issues.size());
-
+            renderer.start();
+            PMD.processFiles(pmdConfig, ruleSets, dataSources, Collections.singletonList(renderer));
+            renderer.end();
         } catch (Exception e) {
-            logger.error("PMD analysis failed: {}", e.getMessage(), e);
+            throw new IllegalStateException("PMD analysis failed: " + e.getMessage(), e);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            // PMD stops rendering reports when interrupted but returns normally
+            throw new IllegalStateException("PMD analysis was interrupted");
+        }
+
+        if (profiler != null) {
+            profiler.finish();
+        }
+        Set<String> incomplete = new HashSet<>(renderer.getFailedFiles());
+        recordFailedFiles(renderer.getFailedFiles(), context.getStatistics());
+        if (budget != null) {
+            incomplete.addAll(budget.getTimedOut());
+            quarantineTimedOut(budget.getTimedOut(), filesByName, context.getStatistics());
+        }
+        for (String fileName : renderer.getStartedFileNames()) {
+            if (!incomplete.contains(fileName)) {
+                sink.fileCompleted(fileName);
+            }
         }
 
+        logger.info("PMD analysis completed with {} issues in {} files",
+                renderer.getIssueCount(), renderer.getStartedFiles());
         progressCallback.accept(1.0);
-        return issues;
     }
 
-    private List<DataSource> collectJavaFiles(Path sourcePath) throws IOException {
-        List<DataSource> dataSources = new ArrayList<>();
-
-        Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                if (file.toString().endsWith(".java")) {
-                    dataSources.add(new FileDataSource(file.toFile()));
-                }
-                return FileVisitResult.CONTINUE;
+    /**
+     * Lets PMD skip files that did not change since the last run on the same source root.
+     * PMD checksums files by path, so this only applies when all sources are on disk.
+     */
+    private void configureAnalysisCache(PMDConfiguration pmdConfig, AnalysisContext context,
+                                        List<DataSource> dataSources) {
+        if (!AppConfig.getInstance().isEnableAnalysisCache()) {
+            pmdConfig.setIgnoreIncrementalAnalysis(true);
+            return;
+        }
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof SourceFileDataSource) {
+                pmdConfig.setIgnoreIncrementalAnalysis(true);
+                return;
             }
+        }
+        try {
+            pmdConfig.setAnalysisCache(PmdAnalysisCache.open(context.getInventory().getRoot(),
+                    context.getRuleConfiguration().resultsFingerprint(), context.getStatistics()));
+        } catch (IOException e) {
+            logger.warn("PMD analysis cache unavailable: {}", e.getMessage());
+            pmdConfig.setIgnoreIncrementalAnalysis(true);
+        }
+    }
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                String name = dir.getFileName().toString();
-                // Skip common non-source directories
-                if (name.equals(".git") || name.equals("target") ||
-                    name.equals("build") || name.equals("node_modules") ||
-                    name.equals(".idea") || name.equals(".gradle")) {
-                    return FileVisitResult.SKIP_SUBTREE;
-                }
-                return FileVisitResult.CONTINUE;
+    /**
+     * Returns the name that the file of a rule context was started under, as seen by the renderer.
+     * RuleContext.getSourceCodeFilename() is only the base name, which does not identify the file.
+     */
+    static String fileNameOf(RuleContext ctx) {
+        File file = ctx.getSourceCodeFile();
+        return file != null ? file.getPath() : null;
+    }
+
+    /**
+     * Parses the configured severity overrides once, so issues are created with their final severity.
+     */
+    private static Map<String, Severity> resolveSeverityOverrides(RuleConfiguration config) {
+        Map<String, Severity> overrides = new HashMap<>();
+        for (Map.Entry<String, String> entry : config.getSeverityOverrides().entrySet()) {
+            overrides.put(entry.getKey(), Severity.fromString(entry.getValue()));
+        }
+        return overrides;
+    }
+
+    /**
+     * Records files that PMD could not process, typically because they do not parse, as skipped.
+     */
+    private static void recordFailedFiles(Set<String> failedFiles, AnalysisStatistics statistics) {
+        for (String fileName : failedFiles) {
+            logger.warn("PMD could not process {}", fileName);
+            statistics.recordSkippedFile(fileName, AnalysisStatistics.SKIPPED_ERROR);
+        }
+    }
+
+    /**
+     * Records files that ran out of time as skipped, and quarantines them for later runs.
+     */
+    private void quarantineTimedOut(Set<String> timedOut, Map<String, SourceInventory.SourceFile> filesByName,
+                                    AnalysisStatistics statistics) {
+        for (String fileName : timedOut) {
+            logger.warn("PMD analysis of {} exceeded {}s and was abandoned", fileName,
+                    AppConfig.getInstance().getFileTimeoutSeconds());
+            statistics.recordSkippedFile(fileName, AnalysisStatistics.SKIPPED_TIMEOUT);
+            SourceInventory.SourceFile file = filesByName.get(fileName);
+            if (file != null) {
+                quarantine.add(getId(), file, AnalysisStatistics.SKIPPED_TIMEOUT,
+                        AppConfig.getInstance().getFileTimeoutSeconds());
             }
-        });
+        }
+    }
 
+    private List<DataSource> collectJavaFiles(AnalysisContext context,
+                                              Map<String, SourceInventory.SourceFile> filesByName) {
+        long maxFileBytes = AppConfig.getInstance().getMaxFileBytes();
+        AnalysisStatistics statistics = context.getStatistics();
+        List<DataSource> dataSources = new ArrayList<>();
+        for (SourceInventory.SourceFile file : context.getInventory().getFiles()) {
+            if (!accepts(file)) {
+                continue;
+            }
+            String fileName = file.getPath().toAbsolutePath().toString();
+            if (maxFileBytes > 0 && file.getSize() > maxFileBytes) {
+                logger.info("Skipping {}: {} bytes exceed the limit of {}", fileName, file.getSize(), maxFileBytes);
+                statistics.recordSkippedFile(fileName, AnalysisStatistics.SKIPPED_SIZE);
+                continue;
+            }
+            if (quarantine.isQuarantined(getId(), file, AppConfig.getInstance().getFileTimeoutSeconds())) {
+                logger.info("Skipping {}: timed out in an earlier run", fileName);
+                statistics.recordSkippedFile(fileName, AnalysisStatistics.SKIPPED_QUARANTINED);
+                continue;
+            }
+            filesByName.put(fileName, file);
+            dataSources.add(file.isOnDisk()
+                    ? new FileDataSource(file.getPath().toFile())
+                    : new SourceFileDataSource(file));
+        }
         return dataSources;
     }
 
     /**
-     * Custom renderer that collects violations as Issue objects.
+     * Data source streaming a file that is not on disk, such as a Git blob.
+     */
+    private static class SourceFileDataSource implements DataSource {
+        private final SourceInventory.SourceFile file;
+
+        SourceFileDataSource(SourceInventory.SourceFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return file.openStream();
+        }
+
+        @Override
+        public String getNiceFileName(boolean shortNames, String inputFileName) {
+            return shortNames ? file.getRelativePath() : file.getPath().toString();
+        }
+
+        public void close() {
+            // Streams are closed by PMD
+        }
+    }
+
+    /**
+     * Custom renderer that publishes violations as Issue objects to a sink.
+     * PMD may call it from several worker threads: each worker converts a file's violations into
+     * its own buffer and hands the batch to the sink, and progress is tracked atomically.
      */
     private static class IssueCollectingRenderer extends AbstractIncrementingRenderer {
-        private final List<Issue> issues;
-        private final Path basePath;
+        private final IssueSink sink;
         private final Consumer<Double> progressCallback;
         private final int totalFiles;
-        private int processedFiles = 0;
-
-        IssueCollectingRenderer(List<Issue> issues, Path basePath, Consumer<Double> progressCallback, int totalFiles) {
+        private final AtomicInteger startedFiles = new AtomicInteger();
+        private final AtomicInteger issueCount = new AtomicInteger();
+        private final Set<String> startedFileNames = ConcurrentHashMap.newKeySet();
+        private final Set<String> failedFiles = ConcurrentHashMap.newKeySet();
+        private final Instant detectedAt;
+        private final Map<String, Severity> severityOverrides;
+        private final PmdProfiler profiler;
+        private final PmdFileBudget budget;
+        private final ThreadLocal<List<Issue>> buffer = ThreadLocal.withInitial(ArrayList::new);
+
+        IssueCollectingRenderer(IssueSink sink, Consumer<Double> progressCallback,
+                                int totalFiles, Instant detectedAt, Map<String, Severity> severityOverrides,
+                                PmdProfiler profiler, PmdFileBudget budget) {
             super("issue-collector", "Collects issues");
-            this.issues = issues;
-            this.basePath = basePath;
+            this.sink = sink;
             this.progressCallback = progressCallback;
             this.totalFiles = totalFiles;
+            this.detectedAt = detectedAt;
+            this.severityOverrides = severityOverrides;
+            this.profiler = profiler;
+            this.budget = budget;
+            // PMD flushes the writer after every file report
+            setWriter(new StringWriter());
         }
 
         @Override
@@ -181,19 +355,17 @@ public class PmdAnalyzer implements Analyzer {
 
         @Override
         public void renderFileViolations(Iterator<RuleViolation> violations) {
+            List<Issue> issues = buffer.get();
             while (violations.hasNext()) {
                 RuleViolation v = violations.next();
-
-                String filePath = v.getFilename();
-                String relativePath = filePath;
-                try {
-                    relativePath = basePath.relativize(Paths.get(filePath)).toString();
-                } catch (Exception e) {
-                    // Use absolute path if relativization fails
+                if (budget != null && budget.isTimedOut(v.getFilename())) {
+                    // Results of abandoned files are incomplete, so none are reported
+                    continue;
                 }
 
-                Issue issue = Issue.builder()
-                        .filePath(filePath)
+                // Data sources are named by absolute path, which is what issues carry
+                issues.add(Issue.builder()
+                        .filePath(v.getFilename())
                         .startLine(v.getBeginLine())
                         .endLine(v.getEndLine())
                         .startColumn(v.getBeginColumn())
@@ -201,32 +373,75 @@ public class PmdAnalyzer implements Analyzer {
                         .rule(v.getRule().getName())
                         .ruleSet(v.getRule().getRuleSetName())
                         .message(v.getDescription())
-                        .severity(mapPriority(v.getRule().getPriority()))
+                        .severity(severityOf(v.getRule()))
                         .analyzer("PMD")
-                        .build();
+                        .detectedAt(detectedAt)
+                        .build());
+            }
 
-                issues.add(issue);
+            try {
+                for (Issue issue : issues) {
+                    sink.accept(issue);
+                }
+                issueCount.addAndGet(issues.size());
+            } finally {
+                issues.clear();
             }
+        }
 
-            processedFiles++;
-            progressCallback.accept((double) processedFiles / totalFiles * 0.95);
+        int getIssueCount() {
+            return issueCount.get();
         }
 
-        @Override
-        public void start() {}
+        int getStartedFiles() {
+            return startedFiles.get();
+        }
+
+        /**
+         * Returns the files PMD started, by the name that PMD reports them under.
+         */
+        Set<String> getStartedFileNames() {
+            return startedFileNames;
+        }
+
+        /**
+         * Returns the files with processing errors, whose results are missing.
+         */
+        Set<String> getFailedFiles() {
+            return failedFiles;
+        }
 
         @Override
-        public void startFileAnalysis(DataSource dataSource) {}
+        public void renderFileReport(Report report) throws IOException {
+            super.renderFileReport(report);
+            for (Iterator<Report.ProcessingError> errors = report.errors(); errors.hasNext(); ) {
+                failedFiles.add(errors.next().getFile());
+            }
+        }
 
         @Override
-        public void end() {}
+        public void start() {}
 
         @Override
-        public void setWriter(Writer writer) {}
+        public void startFileAnalysis(DataSource dataSource) {
+            String fileName = dataSource.getNiceFileName(false, null);
+            startedFileNames.add(fileName);
+            if (profiler != null) {
+                profiler.fileStarted(fileName);
+            }
+            if (budget != null) {
+                budget.fileStarted(fileName);
+            }
+            int started = startedFiles.incrementAndGet();
+            progressCallback.accept((double) started / totalFiles * 0.95);
+        }
 
         @Override
-        public Writer getWriter() {
-            return null;
+        public void end() {}
+
+        private Severity severityOf(Rule rule) {
+            Severity override = severityOverrides.get(rule.getName());
+            return override != null ? override : mapPriority(rule.getPriority());
         }
 
         private Severity mapPriority(RulePriority priority) {
@@ -0,0 +1,138 @@
+package com.sta.core.analyzer;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractDelegateRule;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-file time budget for a PMD run, enforced cooperatively.
+ * Rules are wrapped in a delegate that checks the deadline of the current file before running.
+ * Once the deadline has passed, the remaining rules of that file are skipped and the file is
+ * reported as timed out. The clock starts with the file, so parsing counts against the budget.
+ * What PMD runs before the first wrapped rule is never bounded though: parsing, symbol and type
+ * resolution, and the rule chain, whose rules are left unwrapped to keep PMD's single-pass rule
+ * chain. A huge generated file mostly spends its time there. A rule that is already running is
+ * not interrupted either. Files are keyed by the name the renderer sees, which is the path of the
+ * rule context's file.
+ */
+final class PmdFileBudget {
+
+    private final long timeoutNanos;
+    private final AnalysisCache analysisCache;
+    private final Set<String> timedOut = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<FileState> current = ThreadLocal.withInitial(FileState::new);
+
+    /**
+     * @param analysisCache PMD's cache, told to forget timed-out files so their partial results are not reused
+     */
+    PmdFileBudget(long timeoutNanos, AnalysisCache analysisCache) {
+        this.timeoutNanos = timeoutNanos;
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Returns copies of the rule sets with every rule that PMD applies directly wrapped in a deadline check.
+     */
+    List<RuleSet> instrument(List<RuleSet> ruleSets) {
+        List<RuleSet> instrumented = new ArrayList<>(ruleSets.size());
+        for (RuleSet ruleSet : ruleSets) {
+            List<Rule> rules = new ArrayList<>();
+            for (Rule rule : ruleSet.getRules()) {
+                rules.add(rule.isRuleChain() ? rule : new BudgetRule(rule, this));
+            }
+            instrumented.add(RuleSet.create(ruleSet.getName(), ruleSet.getDescription(), ruleSet.getFileName(),
+                    ruleSet.getFileExclusions(), ruleSet.getFileInclusions(), rules));
+        }
+        return instrumented;
+    }
+
+    /**
+     * Starts the clock for a file on the calling worker thread, keyed by the data source's full name.
+     */
+    void fileStarted(String fileName) {
+        current.get().start(fileName, System.nanoTime());
+    }
+
+    /**
+     * Returns true if the file ran out of time, so its results are incomplete.
+     */
+    boolean isTimedOut(String fileName) {
+        return timedOut.contains(fileName);
+    }
+
+    /**
+     * Returns all files that ran out of time.
+     */
+    Set<String> getTimedOut() {
+        return Collections.unmodifiableSet(timedOut);
+    }
+
+    private boolean hasTimeLeft(String fileName) {
+        FileState state = current.get();
+        if (fileName != null && !fileName.equals(state.fileName)) {
+            // The file start was not seen on this thread; count from its first rule
+            state.start(fileName, System.nanoTime());
+        }
+        if (state.expired) {
+            return false;
+        }
+        if (System.nanoTime() - state.deadline > 0) {
+            state.expired = true;
+            if (fileName != null) {
+                timedOut.add(fileName);
+                analysisCache.analysisFailed(new File(fileName));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private final class FileState {
+        private String fileName;
+        private long deadline;
+        private boolean expired;
+
+        void start(String fileName, long startNanos) {
+            this.fileName = fileName;
+            this.deadline = startNanos + timeoutNanos;
+            this.expired = false;
+        }
+    }
+
+    /**
+     * Delegate that runs its rule only while the current file has time left.
+     */
+    private static final class BudgetRule extends AbstractDelegateRule {
+        private final PmdFileBudget budget;
+
+        BudgetRule(Rule rule, PmdFileBudget budget) {
+            this.budget = budget;
+            setRule(rule);
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            if (budget.hasTimeLeft(PmdAnalyzer.fileNameOf(ctx))) {
+                getRule().apply(nodes, ctx);
+            }
+        }
+
+        /**
+         * PMD copies rules for each worker thread; the copy must keep checking.
+         */
+        @Override
+        public Rule deepCopy() {
+            return new BudgetRule(getRule().deepCopy(), budget);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.sta.core.analyzer;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractDelegateRule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Measures a PMD run into a {@link RuleProfile}.
+ * Every rule is wrapped in a timing delegate. Each PMD worker thread tracks the file it works on:
+ * the time from the start of a file to its first rule is counted as parse time, the time inside
+ * rules as rule time.
+ * PMD's rule chain cannot dispatch to a delegate, so while profiling every rule runs as its own
+ * full-tree visit. Rules that normally use the rule chain are therefore measured on a slower path
+ * than in normal runs, and the total rule time is higher.
+ */
+final class PmdProfiler {
+
+    private final RuleProfile profile;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTime;
+    private final Queue<FileState> states = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<FileState> current = ThreadLocal.withInitial(() -> {
+        FileState state = new FileState();
+        states.add(state);
+        return state;
+    });
+
+    PmdProfiler(RuleProfile profile) {
+        this.profile = profile;
+        this.cpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Returns copies of the rule sets with every rule wrapped in a timing delegate.
+     */
+    List<RuleSet> instrument(List<RuleSet> ruleSets) {
+        List<RuleSet> instrumented = new ArrayList<>(ruleSets.size());
+        for (RuleSet ruleSet : ruleSets) {
+            List<Rule> rules = new ArrayList<>();
+            for (Rule rule : ruleSet.getRules()) {
+                rules.add(new TimingRule(rule, this));
+            }
+            instrumented.add(RuleSet.create(ruleSet.getName(), ruleSet.getDescription(), ruleSet.getFileName(),
+                    ruleSet.getFileExclusions(), ruleSet.getFileInclusions(), rules));
+        }
+        return instrumented;
+    }
+
+    /**
+     * Marks the start of a file on the calling worker thread.
+     */
+    void fileStarted(String fileName) {
+        current.get().start(fileName, System.nanoTime());
+    }
+
+    /**
+     * Records the last file of every worker. Call once PMD has finished.
+     */
+    void finish() {
+        for (FileState state : states) {
+            state.flush();
+        }
+    }
+
+    private void ruleExecuted(Rule rule, String fileName, long startNanos, long wallNanos, long cpuNanos) {
+        FileState state = current.get();
+        if (fileName != null && !fileName.equals(state.fileName)) {
+            // The file start was not seen on this thread, so its parse time is unknown
+            state.start(fileName, startNanos);
+        }
+        if (state.firstRuleNanos < 0) {
+            state.firstRuleNanos = startNanos;
+        }
+        state.ruleNanos += wallNanos;
+        profile.recordRule(rule.getName(), rule.getRuleSetName(), wallNanos, cpuNanos);
+    }
+
+    private long cpuNanos() {
+        return cpuTime ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Progress of one worker thread on its current file.
+     */
+    private final class FileState {
+        private String fileName;
+        private long startNanos;
+        private long firstRuleNanos = -1;
+        private long ruleNanos;
+
+        void start(String fileName, long startNanos) {
+            flush();
+            this.fileName = fileName;
+            this.startNanos = startNanos;
+        }
+
+        void flush() {
+            if (fileName != null) {
+                long parseNanos = firstRuleNanos >= 0 ? firstRuleNanos - startNanos : 0;
+                profile.recordFile(fileName, parseNanos, ruleNanos);
+            }
+            fileName = null;
+            firstRuleNanos = -1;
+            ruleNanos = 0;
+        }
+    }
+
+    /**
+     * Delegate measuring the wall and CPU time of each application of a rule.
+     */
+    private static final class TimingRule extends AbstractDelegateRule {
+        private final PmdProfiler profiler;
+
+        TimingRule(Rule rule, PmdProfiler profiler) {
+            this.profiler = profiler;
+            setRule(rule);
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            long cpuStart = profiler.cpuNanos();
+            long start = System.nanoTime();
+            try {
+                getRule().apply(nodes, ctx);
+            } finally {
+                long wall = System.nanoTime() - start;
+                long cpu = profiler.cpuNanos() - cpuStart;
+                profiler.ruleExecuted(getRule(), PmdAnalyzer.fileNameOf(ctx), start, wall, cpu);
+            }
+        }
+
+        /**
+         * PMD's rule chain dispatches to the rule's own visitor methods, which a delegate does not have,
+         * so measured rules are applied directly.
+         */
+        @Override
+        public boolean isRuleChain() {
+            return false;
+        }
+
+        /**
+         * PMD copies rules for each worker thread; the copy must keep measuring.
+         */
+        @Override
+        public Rule deepCopy() {
+            return new TimingRule(getRule().deepCopy(), profiler);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sta.core.analyzer;
+
+import com.sta.config.RuleConfiguration;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetFactory;
+import net.sourceforge.pmd.RuleSetNotFoundException;
+import net.sourceforge.pmd.RulesetsFactoryUtils;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * JVM-wide cache of loaded PMD rule sets, keyed by the rule configuration's results fingerprint.
+ * Loading parses the category XML and instantiates every rule reflectively, so it is done once per
+ * configuration and shared by all analyses and engines. Disabled rules are dropped and configured
+ * rule properties are set while loading. PMD copies the rules for each of its worker threads, so
+ * the cached instances are never run directly.
+ */
+final class PmdRuleSets {
+
+    private static final Logger logger = LoggerFactory.getLogger(PmdRuleSets.class);
+
+    private static final int MAX_ENTRIES = 8;
+
+    private static final Map<String, List<RuleSet>> cache =
+            new LinkedHashMap<String, List<RuleSet>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<RuleSet>> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private PmdRuleSets() {
+    }
+
+    /**
+     * Returns the rule sets for a configuration, loading them on first use.
+     */
+    static synchronized List<RuleSet> forConfiguration(RuleConfiguration config) throws RuleSetNotFoundException {
+        String fingerprint = config.resultsFingerprint();
+        List<RuleSet> ruleSets = cache.get(fingerprint);
+        if (ruleSets == null) {
+            long start = System.nanoTime();
+            ruleSets = load(config);
+            cache.put(fingerprint, ruleSets);
+            logger.info("Loaded {} PMD rule sets in {} ms", ruleSets.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return ruleSets;
+    }
+
+    private static List<RuleSet> load(RuleConfiguration config) throws RuleSetNotFoundException {
+        // Sorted, so equal configurations load their rules in the same order
+        String references = String.join(",", new TreeSet<>(config.getEnabledRuleSets()));
+        if (references.isEmpty()) {
+            return Collections.emptyList();
+        }
+        RuleSetFactory factory = RulesetsFactoryUtils.defaultFactory();
+
+        List<RuleSet> ruleSets = new ArrayList<>();
+        int disabled = 0;
+        for (RuleSet ruleSet : factory.createRuleSets(references).getAllRuleSets()) {
+            List<Rule> rules = new ArrayList<>();
+            for (Rule rule : ruleSet.getRules()) {
+                if (!config.isRuleEnabled(rule.getName())) {
+                    disabled++;
+                    continue;
+                }
+                Map<String, Object> properties = config.getRuleProperties().get(rule.getName());
+                if (properties != null) {
+                    applyProperties(rule, properties);
+                }
+                rules.add(rule);
+            }
+            if (!rules.isEmpty()) {
+                ruleSets.add(RuleSet.create(ruleSet.getName(), ruleSet.getDescription(), ruleSet.getFileName(),
+                        ruleSet.getFileExclusions(), ruleSet.getFileInclusions(), rules));
+            }
+        }
+        if (disabled > 0) {
+            logger.info("Skipping {} disabled PMD rules", disabled);
+        }
+        return Collections.unmodifiableList(ruleSets);
+    }
+
+    private static void applyProperties(Rule rule, Map<String, Object> properties) {
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            PropertyDescriptor<?> descriptor = rule.getPropertyDescriptor(property.getKey());
+            if (descriptor == null) {
+                logger.warn("Rule {} has no property {}", rule.getName(), property.getKey());
+                continue;
+            }
+            try {
+                setProperty(rule, descriptor, String.valueOf(property.getValue()));
+            } catch (RuntimeException e) {
+                logger.warn("Invalid value for {}.{}: {}", rule.getName(), property.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private static <T> void setProperty(Rule rule, PropertyDescriptor<T> descriptor, String value) {
+        rule.setProperty(descriptor, descriptor.valueFrom(value));
+    }
+}
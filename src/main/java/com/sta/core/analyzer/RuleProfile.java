@@ -0,0 +1,136 @@
+package com.sta.core.analyzer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution times collected by an opt-in profiling run.
+ * Records wall and CPU time per rule, and parse and rule time per file. Updated concurrently by
+ * analyzer worker threads; read once the analysis is complete.
+ */
+public class RuleProfile {
+
+    private final Map<String, RuleTiming> rules = new ConcurrentHashMap<>();
+    private final Map<String, FileTiming> files = new ConcurrentHashMap<>();
+
+    /**
+     * Adds one execution of a rule on one file.
+     */
+    public void recordRule(String rule, String ruleSet, long wallNanos, long cpuNanos) {
+        RuleTiming timing = rules.computeIfAbsent(rule, name -> new RuleTiming(name, ruleSet));
+        timing.invocations.increment();
+        timing.wallNanos.add(wallNanos);
+        timing.cpuNanos.add(cpuNanos);
+    }
+
+    /**
+     * Adds the time spent on one file, split into parsing and running rules.
+     */
+    public void recordFile(String file, long parseNanos, long ruleNanos) {
+        FileTiming timing = files.computeIfAbsent(file, FileTiming::new);
+        timing.parseNanos.add(parseNanos);
+        timing.ruleNanos.add(ruleNanos);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Returns the rules with the highest total wall time, most expensive first.
+     */
+    public List<RuleTiming> getTopRules(int limit) {
+        List<RuleTiming> sorted = new ArrayList<>(rules.values());
+        sorted.sort(Comparator.comparingLong(RuleTiming::getWallNanos).reversed()
+                .thenComparing(RuleTiming::getRule));
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    /**
+     * Returns the files with the highest parse plus rule time, slowest first.
+     */
+    public List<FileTiming> getTopFiles(int limit) {
+        List<FileTiming> sorted = new ArrayList<>(files.values());
+        sorted.sort(Comparator.comparingLong(FileTiming::getTotalNanos).reversed()
+                .thenComparing(FileTiming::getFile));
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    /**
+     * Returns the total wall time of the rules of each rule set.
+     */
+    public Map<String, Long> getWallNanosByRuleSet() {
+        Map<String, Long> byRuleSet = new TreeMap<>();
+        for (RuleTiming timing : rules.values()) {
+            byRuleSet.merge(String.valueOf(timing.getRuleSet()), timing.getWallNanos(), Long::sum);
+        }
+        return byRuleSet;
+    }
+
+    /**
+     * Returns the total wall time of all rules.
+     */
+    public long getRuleNanos() {
+        long total = 0;
+        for (RuleTiming timing : rules.values()) {
+            total += timing.getWallNanos();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total time spent before the first rule of each file, which is mostly parsing.
+     */
+    public long getParseNanos() {
+        long total = 0;
+        for (FileTiming timing : files.values()) {
+            total += timing.getParseNanos();
+        }
+        return total;
+    }
+
+    /**
+     * Accumulated times of one rule.
+     */
+    public static final class RuleTiming {
+        private final String rule;
+        private final String ruleSet;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+
+        RuleTiming(String rule, String ruleSet) {
+            this.rule = rule;
+            this.ruleSet = ruleSet;
+        }
+
+        public String getRule() { return rule; }
+        public String getRuleSet() { return ruleSet; }
+        public long getInvocations() { return invocations.sum(); }
+        public long getWallNanos() { return wallNanos.sum(); }
+
+        /**
+         * Returns the CPU time, or 0 if the JVM does not measure thread CPU time.
+         */
+        public long getCpuNanos() { return cpuNanos.sum(); }
+    }
+
+    /**
+     * Accumulated times of one file.
+     */
+    public static final class FileTiming {
+        private final String file;
+        private final LongAdder parseNanos = new LongAdder();
+        private final LongAdder ruleNanos = new LongAdder();
+
+        FileTiming(String file) {
+            this.file = file;
+        }
+
+        public String getFile() { return file; }
+        public long getParseNanos() { return parseNanos.sum(); }
+        public long getRuleNanos() { return ruleNanos.sum(); }
+        public long getTotalNanos() { return getParseNanos() + getRuleNanos(); }
+    }
+}
@@ -0,0 +1,182 @@
+package com.sta.core.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sta.config.AppConfig;
+import com.sta.core.analyzer.Analyzer;
+import com.sta.core.engine.Issue;
+import com.sta.core.engine.Severity;
+import com.sta.core.source.SourceInventory.SourceFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Persistent per-file cache of analyzer results.
+ * Entries are keyed by file content hash, analyzer id and version, and the rule configuration's
+ * results fingerprint, so unchanged files never need to be analyzed again.
+ */
+public class IssueCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssueCache.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String CACHE_DIR = "cache";
+
+    private final Path directory;
+
+    public IssueCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the cache in the user's configuration directory.
+     */
+    public static IssueCache openDefault() {
+        return new IssueCache(AppConfig.getConfigDirectory().resolve(CACHE_DIR));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Computes the cache key of a file for the given analyzer and rule configuration.
+     */
+    public String keyFor(SourceFile file, Analyzer analyzer, String ruleFingerprint) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(("content=" + file.getContentHash()
+                + "\n" + analyzer.getId() + "\n" + analyzer.getVersion() + "\n" + ruleFingerprint)
+                .getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the cached issues for a key, rebound to the given file and run, if present.
+     */
+    public Optional<List<Issue>> lookup(String key, SourceFile file, Instant detectedAt) {
+        Path entry = entryPath(key);
+        if (!Files.exists(entry)) {
+            return Optional.empty();
+        }
+
+        try {
+            CachedIssue[] cached = objectMapper.readValue(entry.toFile(), CachedIssue[].class);
+            List<Issue> issues = new ArrayList<>(cached.length);
+            String filePath = file.getPath().toAbsolutePath().toString();
+            for (CachedIssue c : cached) {
+                issues.add(c.toIssue(filePath, detectedAt));
+            }
+            return Optional.of(issues);
+        } catch (Exception e) {
+            logger.debug("Ignoring unreadable cache entry {}: {}", entry, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the issues found in one file.
+     */
+    public void store(String key, List<Issue> issues) {
+        Path entry = entryPath(key);
+        try {
+            Files.createDirectories(entry.getParent());
+
+            List<CachedIssue> cached = new ArrayList<>(issues.size());
+            for (Issue issue : issues) {
+                cached.add(CachedIssue.from(issue));
+            }
+
+            Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), cached);
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write cache entry {}: {}", entry, e.getMessage());
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Serialized form of an issue. The file path is not stored since entries are content addressed.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class CachedIssue {
+        public String severity;
+        public String rule;
+        public String ruleSet;
+        public String message;
+        public String description;
+        public int startLine;
+        public int endLine;
+        public int startColumn;
+        public int endColumn;
+        public String codeSnippet;
+        public String suggestion;
+        public String analyzer;
+        public String documentationUrl;
+
+        static CachedIssue from(Issue issue) {
+            CachedIssue c = new CachedIssue();
+            c.severity = issue.getSeverity().name();
+            c.rule = issue.getRule();
+            c.ruleSet = issue.getRuleSet();
+            c.message = issue.getMessage();
+            c.description = issue.getDescription();
+            c.startLine = issue.getStartLine();
+            c.endLine = issue.getEndLine();
+            c.startColumn = issue.getStartColumn();
+            c.endColumn = issue.getEndColumn();
+            c.codeSnippet = issue.getCodeSnippet();
+            c.suggestion = issue.getSuggestion();
+            c.analyzer = issue.getAnalyzer();
+            c.documentationUrl = issue.getDocumentationUrl();
+            return c;
+        }
+
+        Issue toIssue(String filePath, Instant detectedAt) {
+            return Issue.builder()
+                    .severity(Severity.valueOf(severity))
+                    .rule(rule)
+                    .ruleSet(ruleSet)
+                    .message(message)
+                    .description(description)
+                    .filePath(filePath)
+                    .startLine(startLine)
+                    .endLine(endLine)
+                    .startColumn(startColumn)
+                    .endColumn(endColumn)
+                    .codeSnippet(codeSnippet)
+                    .suggestion(suggestion)
+                    .analyzer(analyzer)
+                    .documentationUrl(documentationUrl)
+                    .detectedAt(detectedAt)
+                    .build();
+        }
+    }
+}
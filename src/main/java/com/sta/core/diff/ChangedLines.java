@@ -0,0 +1,114 @@
+package com.sta.core.diff;
+
+import com.sta.core.engine.Issue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Lines touched by a change, indexed per file.
+ * Used to keep only the issues reported on new or modified code.
+ */
+public class ChangedLines {
+
+    private final List<Path> roots;
+    private final Map<String, LineRangeIndex> files;
+
+    private ChangedLines(Path root, Map<String, LineRangeIndex> files) {
+        this.roots = new ArrayList<>();
+        Path absoluteRoot = root.toAbsolutePath().normalize();
+        roots.add(absoluteRoot);
+        try {
+            Path realRoot = absoluteRoot.toRealPath();
+            if (!realRoot.equals(absoluteRoot)) {
+                roots.add(realRoot);
+            }
+        } catch (IOException e) {
+            // Absolute root is enough
+        }
+        this.files = files;
+    }
+
+    /**
+     * Returns the number of changed files.
+     */
+    public int getFileCount() {
+        return files.size();
+    }
+
+    /**
+     * Checks if the issue's line range intersects a changed region of its file.
+     */
+    public boolean contains(Issue issue) {
+        if (issue.getFilePath() == null) {
+            return false;
+        }
+        LineRangeIndex index = files.get(relativize(issue.getFilePath()));
+        return index != null && index.overlaps(issue.getStartLine(), issue.getEndLine());
+    }
+
+    /**
+     * Returns the issues located on changed lines.
+     */
+    public List<Issue> filter(Collection<Issue> issues) {
+        List<Issue> result = new ArrayList<>();
+        for (Issue issue : issues) {
+            if (contains(issue)) {
+                result.add(issue);
+            }
+        }
+        return result;
+    }
+
+    private String relativize(String filePath) {
+        Path path = Paths.get(filePath);
+        if (!path.isAbsolute()) {
+            return normalizeSeparators(path.normalize().toString());
+        }
+        path = path.normalize();
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return normalizeSeparators(root.relativize(path).toString());
+            }
+        }
+        return normalizeSeparators(path.toString());
+    }
+
+    private static String normalizeSeparators(String path) {
+        return path.replace('\\', '/');
+    }
+
+    /**
+     * Collects changed line ranges per repository-relative path.
+     */
+    public static class Builder {
+        private final Path root;
+        private final Map<String, LineRangeIndex.Builder> files = new HashMap<>();
+
+        public Builder(Path root) {
+            this.root = root;
+        }
+
+        /**
+         * Adds the inclusive, 1-based line range start..end of the given file.
+         */
+        public Builder add(String relativePath, int start, int end) {
+            files.computeIfAbsent(normalizeSeparators(relativePath), p -> new LineRangeIndex.Builder())
+                    .add(start, end);
+            return this;
+        }
+
+        public ChangedLines build() {
+            Map<String, LineRangeIndex> indexes = new HashMap<>();
+            for (Map.Entry<String, LineRangeIndex.Builder> entry : files.entrySet()) {
+                LineRangeIndex index = entry.getValue().build();
+                if (!index.isEmpty()) {
+                    indexes.put(entry.getKey(), index);
+                }
+            }
+            return new ChangedLines(root, indexes);
+        }
+    }
+}
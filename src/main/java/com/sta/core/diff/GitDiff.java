@@ -0,0 +1,164 @@
+package com.sta.core.diff;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Computes what changed between two refs of a Git repository.
+ * The comparison starts at the merge base of both refs, like a pull request diff.
+ */
+public class GitDiff implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitDiff.class);
+
+    private final Repository repository;
+    private final Path workTree;
+
+    private GitDiff(Repository repository) {
+        this.repository = repository;
+        // Bare repositories are analyzed from their objects, with paths below the repository directory
+        File root = repository.isBare() ? repository.getDirectory() : repository.getWorkTree();
+        this.workTree = root.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Opens the repository containing the given directory.
+     */
+    public static GitDiff open(Path directory) throws IOException {
+        Repository repository = new FileRepositoryBuilder()
+                .readEnvironment()
+                .findGitDir(directory.toAbsolutePath().toFile())
+                .setMustExist(true)
+                .build();
+        return new GitDiff(repository);
+    }
+
+    /**
+     * Returns the top level of the repository containing the given directory, if it is in one.
+     */
+    public static Optional<Path> findWorkTree(Path directory) {
+        try (GitDiff diff = open(directory)) {
+            return Optional.of(diff.getWorkTree());
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("{} is not in a Git repository: {}", directory, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Path getWorkTree() {
+        return workTree;
+    }
+
+    /**
+     * Returns the absolute paths of files added, modified, renamed or copied between the refs.
+     */
+    public Set<Path> changedFiles(String baseRef, String headRef) throws IOException {
+        Set<Path> changed = new HashSet<>();
+        try (DiffFormatter formatter = newFormatter()) {
+            for (DiffEntry entry : scan(formatter, baseRef, headRef)) {
+                if (entry.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                    changed.add(workTree.resolve(entry.getNewPath()).normalize());
+                }
+            }
+        }
+        logger.info("{} files changed between {} and {}", changed.size(), baseRef, headRef);
+        return changed;
+    }
+
+    /**
+     * Returns the line ranges of the new versions of changed files that were added or modified.
+     */
+    public ChangedLines changedLines(String baseRef, String headRef) throws IOException {
+        ChangedLines.Builder builder = new ChangedLines.Builder(workTree);
+        try (DiffFormatter formatter = newFormatter()) {
+            for (DiffEntry entry : scan(formatter, baseRef, headRef)) {
+                if (entry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                    continue;
+                }
+                FileHeader header = formatter.toFileHeader(entry);
+                for (Edit edit : header.toEditList()) {
+                    // Edit positions are 0-based and the end is exclusive
+                    builder.add(entry.getNewPath(), edit.getBeginB() + 1, edit.getEndB());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fails unless headRef names the commit the analyzed files were read from, given by sourceRef.
+     * The changed files and line ranges describe the head revision, so applying them to the files of
+     * another revision would report the wrong lines.
+     */
+    public void requireHead(String headRef, String sourceRef) throws IOException {
+        ObjectId head = resolveCommit(headRef);
+        ObjectId source = resolveCommit(sourceRef);
+        if (!head.equals(source)) {
+            throw new IOException("The analyzed sources are at " + source.abbreviate(7).name()
+                    + " but the head ref " + headRef + " is at " + head.abbreviate(7).name()
+                    + "; check out " + headRef + " or omit the head ref");
+        }
+    }
+
+    private DiffFormatter newFormatter() {
+        DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        formatter.setRepository(repository);
+        formatter.setDetectRenames(true);
+        return formatter;
+    }
+
+    private List<DiffEntry> scan(DiffFormatter formatter, String baseRef, String headRef) throws IOException {
+        ObjectId head = resolveCommit(headRef);
+        ObjectId base = mergeBase(resolveCommit(baseRef), head);
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevTree baseTree = walk.parseCommit(base).getTree();
+            RevTree headTree = walk.parseCommit(head).getTree();
+            return formatter.scan(baseTree, headTree);
+        }
+    }
+
+    private ObjectId resolveCommit(String ref) throws IOException {
+        ObjectId id = repository.resolve(ref + "^{commit}");
+        if (id == null) {
+            // Branches of a fresh clone only exist as remote-tracking refs
+            id = repository.resolve("refs/remotes/origin/" + ref + "^{commit}");
+        }
+        if (id == null) {
+            throw new IOException("Cannot resolve Git ref: " + ref);
+        }
+        return id;
+    }
+
+    private ObjectId mergeBase(ObjectId base, ObjectId head) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRevFilter(RevFilter.MERGE_BASE);
+            walk.markStart(walk.parseCommit(base));
+            walk.markStart(walk.parseCommit(head));
+            RevCommit mergeBase = walk.next();
+            return mergeBase != null ? mergeBase : base;
+        }
+    }
+
+    @Override
+    public void close() {
+        repository.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.sta.core.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of line ranges of one file with O(log n) overlap queries.
+ * Ranges are sorted and merged on construction, so a binary search finds the only candidate.
+ */
+public class LineRangeIndex {
+
+    private final int[] starts;
+    private final int[] ends;
+
+    private LineRangeIndex(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Checks if any indexed line lies within start..end (inclusive).
+     */
+    public boolean overlaps(int start, int end) {
+        if (end < start) {
+            end = start;
+        }
+        // Last range starting at or before 'end'
+        int i = Arrays.binarySearch(starts, end);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i >= 0 && ends[i] >= start;
+    }
+
+    public boolean contains(int line) {
+        return overlaps(line, line);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * Collects ranges in any order and builds the index.
+     */
+    public static class Builder {
+        private final List<int[]> ranges = new ArrayList<>();
+
+        /**
+         * Adds the inclusive range start..end. Empty ranges are ignored.
+         */
+        public Builder add(int start, int end) {
+            if (end >= start) {
+                ranges.add(new int[]{start, end});
+            }
+            return this;
+        }
+
+        public LineRangeIndex build() {
+            ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+            int[] starts = new int[ranges.size()];
+            int[] ends = new int[ranges.size()];
+            int count = 0;
+            for (int[] range : ranges) {
+                if (count > 0 && range[0] <= ends[count - 1] + 1) {
+                    ends[count - 1] = Math.max(ends[count - 1], range[1]);
+                } else {
+                    starts[count] = range[0];
+                    ends[count] = range[1];
+                    count++;
+                }
+            }
+            return new LineRangeIndex(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+        }
+    }
+}
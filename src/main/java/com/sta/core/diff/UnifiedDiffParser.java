@@ -0,0 +1,110 @@
+package com.sta.core.diff;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the added and modified lines of a unified diff (as produced by git diff).
+ * Only lines present in the new version count as changed; pure deletions are ignored.
+ * Paths with git's a/ and b/ prefixes and paths of --no-prefix diffs are both understood.
+ */
+public class UnifiedDiffParser {
+
+    private static final Pattern HUNK_HEADER = Pattern.compile(
+            "^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@.*"
+    );
+
+    /**
+     * Parses a diff file whose paths are relative to the given root, the top level of the repository for git diffs.
+     */
+    public static ChangedLines parse(Path diffFile, Path root) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(diffFile, StandardCharsets.UTF_8)) {
+            return parse(reader, root);
+        }
+    }
+
+    /**
+     * Parses a diff read from the given reader.
+     */
+    public static ChangedLines parse(BufferedReader reader, Path root) throws IOException {
+        ChangedLines.Builder builder = new ChangedLines.Builder(root);
+
+        String currentFile = null;
+        boolean prefixed = false;
+        int newLine = 0;
+        int remaining = 0;
+        int rangeStart = -1;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (remaining > 0) {
+                if (line.startsWith("+")) {
+                    if (rangeStart < 0) {
+                        rangeStart = newLine;
+                    }
+                    newLine++;
+                    remaining--;
+                } else if (line.startsWith("-")) {
+                    // Removed line, not part of the new file
+                } else if (line.startsWith("\\")) {
+                    // "\ No newline at end of file"
+                } else {
+                    rangeStart = closeRange(builder, currentFile, rangeStart, newLine);
+                    newLine++;
+                    remaining--;
+                }
+                if (remaining == 0) {
+                    rangeStart = closeRange(builder, currentFile, rangeStart, newLine);
+                }
+                continue;
+            }
+
+            if (line.startsWith("diff --git ")) {
+                prefixed = line.startsWith("diff --git a/");
+            } else if (line.startsWith("--- ")) {
+                String oldFile = parsePath(line.substring(4));
+                if (oldFile != null) {
+                    // A new file's old side is /dev/null; the diff --git line tells then
+                    prefixed = oldFile.startsWith("a/");
+                }
+            } else if (line.startsWith("+++ ")) {
+                currentFile = parsePath(line.substring(4));
+                if (currentFile != null && prefixed && currentFile.startsWith("b/")) {
+                    currentFile = currentFile.substring(2);
+                }
+            } else if (line.startsWith("@@")) {
+                Matcher matcher = HUNK_HEADER.matcher(line);
+                if (matcher.matches()) {
+                    newLine = Integer.parseInt(matcher.group(1));
+                    remaining = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+                    rangeStart = -1;
+                }
+            }
+        }
+
+        closeRange(builder, currentFile, rangeStart, newLine);
+        return builder.build();
+    }
+
+    private static int closeRange(ChangedLines.Builder builder, String file, int rangeStart, int newLine) {
+        if (file != null && rangeStart >= 0) {
+            builder.add(file, rangeStart, newLine - 1);
+        }
+        return -1;
+    }
+
+    private static String parsePath(String header) {
+        String path = header;
+        int tab = path.indexOf('\t');
+        if (tab >= 0) {
+            path = path.substring(0, tab);
+        }
+        path = path.trim();
+        return path.equals("/dev/null") ? null : path;
+    }
+}
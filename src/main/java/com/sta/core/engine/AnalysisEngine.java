@@ -1,21 +1,32 @@
 package com.sta.core.engine;
 
+import com.sta.config.AppConfig;
 import com.sta.config.RuleConfiguration;
+import com.sta.core.analyzer.AnalysisContext;
+import com.sta.core.analyzer.AnalysisStatistics;
 import com.sta.core.analyzer.Analyzer;
 import com.sta.core.analyzer.PmdAnalyzer;
+import com.sta.core.cache.IssueCache;
+import com.sta.core.diff.ChangedLines;
+import com.sta.core.diff.GitDiff;
+import com.sta.core.diff.UnifiedDiffParser;
 import com.sta.core.source.GitSourceProvider;
 import com.sta.core.source.LocalSourceProvider;
+import com.sta.core.source.MirrorStore;
+import com.sta.core.source.SourceInventory;
 import com.sta.core.source.SourceProvider;
+import com.sta.core.source.WorkspaceManager;
+import com.sta.util.LineCounter.LineStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -26,19 +37,36 @@ public class AnalysisEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(AnalysisEngine.class);
 
+    /** Name of the per-file result cache in the analysis statistics. */
+    private static final String ISSUE_CACHE = "issues";
+
     private final List<Analyzer> analyzers = new ArrayList<>();
     private final List<SourceProvider> sourceProviders = new ArrayList<>();
     private final ExecutorService executor;
+    private final ExecutorService analyzerExecutor;
+    private final WorkspaceManager workspaceManager;
     private RuleConfiguration ruleConfiguration;
+    private IssueCache issueCache;
+    private String baseRef;
+    private String headRef;
+    private Path diffFile;
+    private boolean profiling;
+    private SourceProvider.RetrievalOptions retrievalOptions = SourceProvider.RetrievalOptions.defaults();
 
     private Consumer<String> statusCallback;
     private Consumer<Double> progressCallback;
+    private final List<Consumer<Issue>> issueListeners = new CopyOnWriteArrayList<>();
 
     public AnalysisEngine() {
         this.executor = Executors.newFixedThreadPool(
                 Math.max(2, Runtime.getRuntime().availableProcessors() - 1)
         );
+        this.analyzerExecutor = Executors.newFixedThreadPool(
+                Math.max(1, AppConfig.getInstance().getMaxConcurrentAnalyzers())
+        );
         this.ruleConfiguration = RuleConfiguration.defaults();
+        this.issueCache = AppConfig.getInstance().isEnableAnalysisCache() ? IssueCache.openDefault() : null;
+        this.workspaceManager = WorkspaceManager.openDefault();
         this.statusCallback = status -> {};
         this.progressCallback = progress -> {};
 
@@ -46,7 +74,7 @@ public class AnalysisEngine {
         registerAnalyzer(new PmdAnalyzer());
 
         // Register default source providers
-        registerSourceProvider(new GitSourceProvider());
+        registerSourceProvider(new GitSourceProvider(MirrorStore.openDefault(), workspaceManager));
         registerSourceProvider(new LocalSourceProvider());
     }
 
@@ -68,6 +96,47 @@ public class AnalysisEngine {
         return this;
     }
 
+    /**
+     * Sets how much of a remote source is retrieved (history depth, branches, sparse checkout, no checkout).
+     */
+    public AnalysisEngine setRetrievalOptions(SourceProvider.RetrievalOptions options) {
+        this.retrievalOptions = options != null ? options : SourceProvider.RetrievalOptions.defaults();
+        return this;
+    }
+
+    /**
+     * Sets the cache used to skip unchanged files, or null to always analyze everything.
+     */
+    public AnalysisEngine setIssueCache(IssueCache issueCache) {
+        this.issueCache = issueCache;
+        return this;
+    }
+
+    /**
+     * Restricts analysis to files changed between two Git refs, or clears the restriction when baseRef is null.
+     */
+    public AnalysisEngine setChangeScope(String baseRef, String headRef) {
+        this.baseRef = baseRef;
+        this.headRef = headRef != null ? headRef : "HEAD";
+        return this;
+    }
+
+    /**
+     * Sets a unified diff whose added lines define the new code, or null to use the change scope only.
+     */
+    public AnalysisEngine setDiffFile(Path diffFile) {
+        this.diffFile = diffFile;
+        return this;
+    }
+
+    /**
+     * Enables recording of per-rule and per-file execution times, reported in the result's statistics.
+     */
+    public AnalysisEngine setProfiling(boolean profiling) {
+        this.profiling = profiling;
+        return this;
+    }
+
     public AnalysisEngine onStatus(Consumer<String> callback) {
         this.statusCallback = callback;
         return this;
@@ -78,12 +147,22 @@ public class AnalysisEngine {
         return this;
     }
 
+    /**
+     * Subscribes to issues as they are found, before the analysis completes.
+     * Listeners are called on a single dispatcher thread; slow listeners slow down the analyzers.
+     */
+    public AnalysisEngine onIssue(Consumer<Issue> listener) {
+        issueListeners.add(listener);
+        return this;
+    }
+
     /**
      * Analyzes source code from the given identifier.
      */
     public CompletableFuture<AnalysisResult> analyze(String sourceIdentifier) {
         return CompletableFuture.supplyAsync(() -> {
             Instant startTime = Instant.now();
+            SourceInventory retrieved = null;
 
             try {
                 // Find appropriate source provider
@@ -100,16 +179,67 @@ public class AnalysisEngine {
                 statusCallback.accept("Retrieving source code...");
                 progressCallback.accept(0.05);
 
-                Path sourcePath = provider.retrieve(sourceIdentifier, progress ->
+                // The provider also builds the file inventory shared by all analyzers,
+                // pruning the files that the configured patterns exclude while it walks
+                SourceProvider.RetrievalOptions options = retrievalOptions.toBuilder()
+                        .includePatterns(ruleConfiguration.getIncludePatterns())
+                        .excludePatterns(ruleConfiguration.getExcludePatterns())
+                        .build();
+                retrieved = provider.retrieveInventory(sourceIdentifier, options, progress ->
                         progressCallback.accept(0.05 + progress * 0.15)
                 );
-
-                // Count files and lines
-                statusCallback.accept("Scanning source files...");
                 progressCallback.accept(0.2);
 
-                Map<String, Integer> fileCount = countFiles(sourcePath);
-                int totalLines = countLines(sourcePath);
+                SourceInventory inventory = retrieved;
+                Path sourcePath = inventory.getRoot();
+
+                boolean partial = baseRef != null;
+                ChangedLines changedLines = null;
+                if (partial) {
+                    statusCallback.accept("Computing changes between " + baseRef + " and " + headRef + "...");
+                    try (GitDiff diff = GitDiff.open(sourcePath)) {
+                        // Object database inventories are read at the requested branch, checkouts at HEAD
+                        String sourceRef = retrievalOptions.isObjectDatabase() && retrievalOptions.getBranch() != null
+                                ? retrievalOptions.getBranch() : "HEAD";
+                        diff.requireHead(headRef, sourceRef);
+                        Set<Path> changedFiles = diff.changedFiles(baseRef, headRef);
+                        inventory = inventory.filter(file ->
+                                changedFiles.contains(file.getPath().toAbsolutePath().normalize()));
+                        if (diffFile == null) {
+                            changedLines = diff.changedLines(baseRef, headRef);
+                        }
+                    }
+                }
+                if (diffFile != null) {
+                    // Diff paths are relative to the repository's top level, which may be above the source path
+                    changedLines = UnifiedDiffParser.parse(diffFile,
+                            GitDiff.findWorkTree(sourcePath).orElse(sourcePath));
+                }
+
+                AnalysisStatistics statistics = new AnalysisStatistics();
+                if (ruleConfiguration.isExcludeGeneratedCode()) {
+                    // The inventory detected generated files while counting lines, so nothing is read here
+                    inventory = inventory.filter(file -> {
+                        if (!file.isGenerated()) {
+                            return true;
+                        }
+                        statistics.recordSkippedFile(file.getPath().toAbsolutePath().toString(),
+                                AnalysisStatistics.SKIPPED_GENERATED);
+                        return false;
+                    });
+                    logger.info("Excluded {} generated or vendored files", statistics.getSkippedFiles().size());
+                }
+
+                Map<String, Integer> fileCount = inventory.getFileCountByExtension();
+                LineStats lineStats = inventory.getLineStats();
+
+                AnalysisContext context = AnalysisContext.builder()
+                        .inventory(inventory)
+                        .ruleConfiguration(ruleConfiguration)
+                        .startedAt(startTime)
+                        .statistics(statistics)
+                        .profiling(profiling)
+                        .build();
 
                 // Determine project name
                 String projectName = provider.getMetadata()
@@ -120,8 +250,14 @@ public class AnalysisEngine {
                 statusCallback.accept("Running code analysis...");
                 progressCallback.accept(0.25);
 
-                List<Issue> allIssues = Collections.synchronizedList(new ArrayList<>());
-                Set<String> analyzersUsed = Collections.synchronizedSet(new HashSet<>());
+                // Issues go to per-thread columnar buffers for the result, and through the pipeline to listeners
+                IssueCollector collector = new IssueCollector();
+                IssuePipeline pipeline = issueListeners.isEmpty()
+                        ? null : new IssuePipeline(new ArrayList<>(issueListeners));
+                IssueSink sink = pipeline == null ? collector : issue -> {
+                    collector.accept(issue);
+                    pipeline.accept(issue);
+                };
 
                 List<Analyzer> availableAnalyzers = new ArrayList<>();
                 for (Analyzer analyzer : analyzers) {
@@ -134,30 +270,53 @@ public class AnalysisEngine {
                     logger.warn("No analyzers available!");
                 }
 
-                double progressPerAnalyzer = 0.7 / Math.max(1, availableAnalyzers.size());
-                int analyzerIndex = 0;
+                // Run analyzers concurrently, bounded by the analyzer pool size
+                double[] analyzerProgress = new double[availableAnalyzers.size()];
+                boolean[] succeeded = new boolean[availableAnalyzers.size()];
+                List<CompletableFuture<Void>> analyzerRuns = new ArrayList<>();
+
+                for (int i = 0; i < availableAnalyzers.size(); i++) {
+                    final int slot = i;
+                    final Analyzer analyzer = availableAnalyzers.get(i);
 
-                for (Analyzer analyzer : availableAnalyzers) {
-                    final int currentIndex = analyzerIndex++;
+                    analyzerRuns.add(CompletableFuture.runAsync(() -> {
+                        statusCallback.accept("Running " + analyzer.getDisplayName() + "...");
 
-                    statusCallback.accept("Running " + analyzer.getDisplayName() + "...");
+                        try {
+                            AtomicInteger found = new AtomicInteger();
+                            runAnalyzer(analyzer, context.withProgressCallback(
+                                    progress -> reportAnalyzerProgress(analyzerProgress, slot, progress)
+                            ), issue -> {
+                                sink.accept(issue);
+                                found.incrementAndGet();
+                            });
+
+                            succeeded[slot] = true;
 
-                    try {
-                        double baseProgress = 0.25 + currentIndex * progressPerAnalyzer;
+                            logger.info("{} found {} issues", analyzer.getDisplayName(), found.get());
 
-                        List<Issue> issues = analyzer.analyze(sourcePath, ruleConfiguration,
-                                progress -> progressCallback.accept(
-                                        baseProgress + progress * progressPerAnalyzer
-                                )
-                        );
+                        } catch (Exception e) {
+                            logger.error("{} failed: {}", analyzer.getDisplayName(), e.getMessage(), e);
+                        }
 
-                        allIssues.addAll(issues);
-                        analyzersUsed.add(analyzer.getDisplayName());
+                        reportAnalyzerProgress(analyzerProgress, slot, 1.0);
+                    }, analyzerExecutor));
+                }
 
-                        logger.info("{} found {} issues", analyzer.getDisplayName(), issues.size());
+                try {
+                    CompletableFuture.allOf(analyzerRuns.toArray(new CompletableFuture[0])).join();
+                } finally {
+                    // Delivers the remaining queued issues to listeners before the result is built
+                    if (pipeline != null) {
+                        pipeline.close();
+                    }
+                }
 
-                    } catch (Exception e) {
-                        logger.error("{} failed: {}", analyzer.getDisplayName(), e.getMessage(), e);
+                // Each slot was written by its own run only; join() makes the writes visible
+                Set<String> analyzersUsed = new LinkedHashSet<>();
+                for (int i = 0; i < succeeded.length; i++) {
+                    if (succeeded[i]) {
+                        analyzersUsed.add(availableAnalyzers.get(i).getDisplayName());
                     }
                 }
 
@@ -172,10 +331,17 @@ public class AnalysisEngine {
                         .sourcePath(sourcePath)
                         .analysisTime(startTime)
                         .analysisDuration(duration)
-                        .issues(allIssues)
+                        .issueStore(collector.toStore())
                         .fileCount(fileCount)
-                        .totalLinesOfCode(totalLines)
+                        .totalLinesOfCode(lineStats.totalLines())
+                        .codeLines(lineStats.codeLines())
+                        .commentLines(lineStats.commentLines())
+                        .blankLines(lineStats.blankLines())
                         .analyzersUsed(analyzersUsed)
+                        .partial(partial)
+                        .scope(partial ? baseRef + "..." + headRef : null)
+                        .changedLines(changedLines)
+                        .statistics(context.getStatistics())
                         .build();
 
                 statusCallback.accept("Analysis complete!");
@@ -191,6 +357,11 @@ public class AnalysisEngine {
             } catch (Exception e) {
                 logger.error("Analysis failed: {}", e.getMessage(), e);
                 throw new CompletionException(e);
+            } finally {
+                if (retrieved != null) {
+                    retrieved.close();
+                    workspaceManager.release(retrieved.getRoot());
+                }
             }
         }, executor);
     }
@@ -200,70 +371,143 @@ public class AnalysisEngine {
      */
     public void shutdown() {
         executor.shutdown();
+        analyzerExecutor.shutdown();
         try {
             if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
                 executor.shutdownNow();
             }
+            if (!analyzerExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                analyzerExecutor.shutdownNow();
+            }
         } catch (InterruptedException e) {
             executor.shutdownNow();
+            analyzerExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        // Evict retrieved sources beyond the budget once no run uses them
+        workspaceManager.close();
     }
 
-    private SourceProvider findProvider(String sourceIdentifier) {
-        for (SourceProvider provider : sourceProviders) {
-            if (provider.canHandle(sourceIdentifier)) {
-                return provider;
-            }
+    /**
+     * Runs one analyzer, reusing cached results for files that did not change since they were analyzed.
+     */
+    private void runAnalyzer(Analyzer analyzer, AnalysisContext context, IssueSink sink) {
+        IssueCache cache = this.issueCache;
+        if (cache == null) {
+            analyzer.analyze(context, sink);
+            return;
         }
-        return null;
-    }
 
-    private Map<String, Integer> countFiles(Path sourcePath) {
-        Map<String, Integer> counts = new HashMap<>();
+        String ruleFingerprint = context.getRuleConfiguration().resultsFingerprint();
+        AnalysisStatistics statistics = context.getStatistics();
+        Map<SourceInventory.SourceFile, String> changed = new LinkedHashMap<>();
+        int hits = 0;
 
-        try {
-            Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    String name = file.getFileName().toString();
-                    int dot = name.lastIndexOf('.');
-                    String ext = dot > 0 ? name.substring(dot + 1).toLowerCase() : "other";
-                    counts.merge(ext, 1, Integer::sum);
-                    return FileVisitResult.CONTINUE;
+        for (SourceInventory.SourceFile file : context.getInventory().getFiles()) {
+            if (!analyzer.accepts(file)) {
+                continue;
+            }
+            try {
+                String key = cache.keyFor(file, analyzer, ruleFingerprint);
+                Optional<List<Issue>> cached = cache.lookup(key, file, context.getStartedAt());
+                if (cached.isPresent()) {
+                    for (Issue issue : cached.get()) {
+                        sink.accept(issue);
+                    }
+                    hits++;
+                    statistics.recordCacheHit(ISSUE_CACHE);
+                } else {
+                    changed.put(file, key);
+                    statistics.recordCacheMiss(ISSUE_CACHE);
                 }
-            });
-        } catch (IOException e) {
-            logger.warn("Failed to count files: {}", e.getMessage());
+            } catch (IOException e) {
+                logger.debug("Cannot hash {}: {}", file, e.getMessage());
+                changed.put(file, null);
+                statistics.recordCacheMiss(ISSUE_CACHE);
+            }
         }
 
-        return counts;
-    }
+        logger.info("{}: {} files cached, {} to analyze", analyzer.getDisplayName(), hits, changed.size());
 
-    private int countLines(Path sourcePath) {
-        final int[] totalLines = {0};
+        if (changed.isEmpty()) {
+            context.getProgressCallback().accept(1.0);
+            return;
+        }
 
-        try {
-            Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    String name = file.toString().toLowerCase();
-                    if (name.endsWith(".java") || name.endsWith(".kt") ||
-                        name.endsWith(".scala") || name.endsWith(".groovy")) {
-                        try {
-                            totalLines[0] += Files.readAllLines(file).size();
-                        } catch (IOException e) {
-                            // Ignore
+        // Group the new results per file while passing them on, to cache them afterwards
+        Map<String, SourceInventory.SourceFile> filesByPath = new HashMap<>();
+        for (SourceInventory.SourceFile file : changed.keySet()) {
+            filesByPath.put(file.getPath().toAbsolutePath().toString(), file);
+            try {
+                filesByPath.put(file.getPath().toRealPath().toString(), file);
+            } catch (IOException e) {
+                // Absolute path is enough
+            }
+        }
+
+        // A failing analyzer throws before anything is stored
+        IssueCollector fresh = new IssueCollector();
+        Set<SourceInventory.SourceFile> completed = ConcurrentHashMap.newKeySet();
+        analyzer.analyze(context.withInventory(context.getInventory().filter(changed::containsKey)),
+                new IssueSink() {
+                    @Override
+                    public void accept(Issue issue) {
+                        fresh.accept(issue);
+                        sink.accept(issue);
+                    }
+
+                    @Override
+                    public void fileCompleted(String filePath) {
+                        SourceInventory.SourceFile file = filesByPath.get(filePath);
+                        if (file != null) {
+                            completed.add(file);
                         }
                     }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            logger.warn("Failed to count lines: {}", e.getMessage());
+                });
+
+        Map<SourceInventory.SourceFile, List<Issue>> issuesByFile = new HashMap<>();
+        for (Issue issue : fresh.toList()) {
+            SourceInventory.SourceFile file = issue.getFilePath() != null
+                    ? filesByPath.get(issue.getFilePath()) : null;
+            if (file != null) {
+                issuesByFile.computeIfAbsent(file, f -> new ArrayList<>()).add(issue);
+            }
+        }
+
+        // Store the new results of the files the analyzer finished, including files without issues.
+        // Files that failed, timed out or were skipped are analyzed again next time.
+        for (Map.Entry<SourceInventory.SourceFile, String> entry : changed.entrySet()) {
+            if (entry.getValue() != null && completed.contains(entry.getKey())
+                    && !statistics.isSkipped(entry.getKey().getPath().toAbsolutePath().toString())) {
+                cache.store(entry.getValue(),
+                        issuesByFile.getOrDefault(entry.getKey(), Collections.emptyList()));
+            }
+        }
+    }
+
+    /**
+     * Records one analyzer's progress and publishes the combined analysis progress.
+     */
+    private void reportAnalyzerProgress(double[] analyzerProgress, int slot, double progress) {
+        double combined;
+        synchronized (analyzerProgress) {
+            analyzerProgress[slot] = Math.max(analyzerProgress[slot], progress);
+            double sum = 0;
+            for (double p : analyzerProgress) {
+                sum += p;
+            }
+            combined = sum / analyzerProgress.length;
         }
+        progressCallback.accept(0.25 + combined * 0.7);
+    }
 
-        return totalLines[0];
+    private SourceProvider findProvider(String sourceIdentifier) {
+        for (SourceProvider provider : sourceProviders) {
+            if (provider.canHandle(sourceIdentifier)) {
+                return provider;
+            }
+        }
+        return null;
     }
 
     public List<Analyzer> getAnalyzers() {
@@ -1,5 +1,8 @@
 package com.sta.core.engine;
 
+import com.sta.core.analyzer.AnalysisStatistics;
+import com.sta.core.diff.ChangedLines;
+
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
@@ -8,6 +11,7 @@ import java.util.stream.Collectors;
 
 /**
  * Result of a code analysis run.
+ * Issues are held in a columnar {@link IssueStore}; the list accessors return read-only views of it.
  */
 public class AnalysisResult {
 
@@ -15,20 +19,39 @@ public class AnalysisResult {
     private final Path sourcePath;
     private final Instant analysisTime;
     private final Duration analysisDuration;
-    private final List<Issue> issues;
+    private final IssueStore issues;
     private final Map<String, Integer> fileCount;
     private final int totalLinesOfCode;
+    private final int codeLines;
+    private final int commentLines;
+    private final int blankLines;
     private final Set<String> analyzersUsed;
+    private final boolean partial;
+    private final String scope;
+    private final BitSet newIssues;
+    private final IssueSummary summary;
+    private final IssueSummary newIssueSummary;
+    private final AnalysisStatistics statistics;
 
     private AnalysisResult(Builder builder) {
         this.projectName = builder.projectName != null ? builder.projectName : "Unknown";
         this.sourcePath = builder.sourcePath;
         this.analysisTime = builder.analysisTime != null ? builder.analysisTime : Instant.now();
         this.analysisDuration = builder.analysisDuration;
-        this.issues = builder.issues != null ? new ArrayList<>(builder.issues) : new ArrayList<>();
+        this.issues = builder.issueStore != null ? builder.issueStore
+                : IssueStore.of(builder.issues != null ? builder.issues : Collections.emptyList());
         this.fileCount = builder.fileCount != null ? new HashMap<>(builder.fileCount) : new HashMap<>();
         this.totalLinesOfCode = builder.totalLinesOfCode;
+        this.codeLines = builder.codeLines;
+        this.commentLines = builder.commentLines;
+        this.blankLines = builder.blankLines;
         this.analyzersUsed = builder.analyzersUsed != null ? new HashSet<>(builder.analyzersUsed) : new HashSet<>();
+        this.partial = builder.partial;
+        this.scope = builder.scope;
+        this.newIssues = builder.changedLines != null ? issues.select(builder.changedLines::contains) : null;
+        this.summary = IssueSummary.of(issues, null, sourcePath);
+        this.newIssueSummary = newIssues != null ? IssueSummary.of(issues, newIssues, sourcePath) : summary;
+        this.statistics = builder.statistics != null ? builder.statistics : new AnalysisStatistics();
     }
 
     public static Builder builder() {
@@ -40,23 +63,64 @@ public class AnalysisResult {
     public Path getSourcePath() { return sourcePath; }
     public Instant getAnalysisTime() { return analysisTime; }
     public Duration getAnalysisDuration() { return analysisDuration; }
-    public List<Issue> getIssues() { return Collections.unmodifiableList(issues); }
+    public List<Issue> getIssues() { return issues.asList(); }
+    public IssueStore getIssueStore() { return issues; }
     public Map<String, Integer> getFileCount() { return Collections.unmodifiableMap(fileCount); }
     public int getTotalLinesOfCode() { return totalLinesOfCode; }
+    public int getCodeLines() { return codeLines; }
+    public int getCommentLines() { return commentLines; }
+    public int getBlankLines() { return blankLines; }
     public Set<String> getAnalyzersUsed() { return Collections.unmodifiableSet(analyzersUsed); }
 
+    /**
+     * Returns true if only a subset of the project (e.g. files changed in a pull request) was analyzed.
+     */
+    public boolean isPartial() { return partial; }
+
+    /**
+     * Returns a description of the analyzed subset, such as a Git ref range, or null for whole projects.
+     */
+    public String getScope() { return scope; }
+
+    /**
+     * Returns the counters collected while the analyzers ran, such as cache hits and misses.
+     */
+    public AnalysisStatistics getStatistics() { return statistics; }
+
+    /**
+     * Returns true if the analyzed change is known line by line, so new-code issues can be told apart.
+     */
+    public boolean hasChangedLines() { return newIssues != null; }
+
+    /**
+     * Returns the issues located on changed lines, or all issues when no change information is available.
+     */
+    public List<Issue> getNewIssues() {
+        return newIssues != null ? issues.view(newIssues) : issues.asList();
+    }
+
+    /**
+     * Returns the counts of all issues, computed once when the result was built.
+     */
+    public IssueSummary getSummary() { return summary; }
+
+    /**
+     * Returns the counts of the issues on changed lines, or of all issues when no change information is available.
+     */
+    public IssueSummary getNewIssueSummary() { return newIssueSummary; }
+
     /**
      * Returns total issue count.
      */
     public int getTotalIssueCount() {
-        return issues.size();
+        return summary.getTotal();
     }
 
     /**
      * Returns issue count for a specific severity.
      */
     public long getIssueCount(Severity severity) {
-        return issues.stream().filter(i -> i.getSeverity() == severity).count();
+        return summary.getCount(severity);
     }
 
     /**
@@ -65,10 +129,7 @@ public class AnalysisResult {
     public Map<Severity, Long> getIssueCountBySeverity() {
         Map<Severity, Long> counts = new EnumMap<>(Severity.class);
         for (Severity s : Severity.values()) {
-            counts.put(s, 0L);
-        }
-        for (Issue issue : issues) {
-            counts.merge(issue.getSeverity(), 1L, Long::sum);
+            counts.put(s, (long) summary.getCount(s));
         }
         return counts;
     }
@@ -77,23 +138,15 @@ public class AnalysisResult {
      * Returns issues filtered by severity.
      */
     public List<Issue> getIssuesBySeverity(Severity severity) {
-        return issues.stream()
-                .filter(i -> i.getSeverity() == severity)
-                .collect(Collectors.toList());
+        return issues.withSeverity(severity);
     }
 
     /**
      * Returns top violated rules with counts.
      */
     public List<Map.Entry<String, Long>> getTopViolatedRules(int limit) {
-        Map<String, Long> ruleCounts = new HashMap<>();
-        for (Issue issue : issues) {
-            ruleCounts.merge(issue.getRule(), 1L, Long::sum);
-        }
-
-        return ruleCounts.entrySet().stream()
-                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
-                .limit(limit)
+        return summary.getTopRules(limit).stream()
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().longValue()))
                 .collect(Collectors.toList());
     }
 
@@ -110,18 +163,38 @@ public class AnalysisResult {
         private Instant analysisTime;
         private Duration analysisDuration;
         private List<Issue> issues;
+        private IssueStore issueStore;
         private Map<String, Integer> fileCount;
         private int totalLinesOfCode;
+        private int codeLines;
+        private int commentLines;
+        private int blankLines;
         private Set<String> analyzersUsed;
+        private boolean partial;
+        private String scope;
+        private ChangedLines changedLines;
+        private AnalysisStatistics statistics;
 
         public Builder projectName(String projectName) { this.projectName = projectName; return this; }
         public Builder sourcePath(Path sourcePath) { this.sourcePath = sourcePath; return this; }
         public Builder analysisTime(Instant analysisTime) { this.analysisTime = analysisTime; return this; }
         public Builder analysisDuration(Duration analysisDuration) { this.analysisDuration = analysisDuration; return this; }
         public Builder issues(List<Issue> issues) { this.issues = issues; return this; }
+
+        /**
+         * Uses an already built store instead of copying an issue list.
+         */
+        public Builder issueStore(IssueStore issueStore) { this.issueStore = issueStore; return this; }
         public Builder fileCount(Map<String, Integer> fileCount) { this.fileCount = fileCount; return this; }
         public Builder totalLinesOfCode(int totalLinesOfCode) { this.totalLinesOfCode = totalLinesOfCode; return this; }
+        public Builder codeLines(int codeLines) { this.codeLines = codeLines; return this; }
+        public Builder commentLines(int commentLines) { this.commentLines = commentLines; return this; }
+        public Builder blankLines(int blankLines) { this.blankLines = blankLines; return this; }
         public Builder analyzersUsed(Set<String> analyzersUsed) { this.analyzersUsed = analyzersUsed; return this; }
+        public Builder partial(boolean partial) { this.partial = partial; return this; }
+        public Builder scope(String scope) { this.scope = scope; return this; }
+        public Builder changedLines(ChangedLines changedLines) { this.changedLines = changedLines; return this; }
+        public Builder statistics(AnalysisStatistics statistics) { this.statistics = statistics; return this; }
 
         public AnalysisResult build() {
             return new AnalysisResult(this);
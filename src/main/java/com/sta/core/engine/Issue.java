@@ -1,15 +1,22 @@
 package com.sta.core.engine;
 
+import com.sta.util.StringPool;
+
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Represents a single issue found during code analysis.
+ * Repeating names (rule, rule set, analyzer, documentation URL) are pooled and the id is derived
+ * on first use, so large results stay compact. Free-form text is never pooled, since the pool
+ * keeps every value it sees.
  */
 public class Issue {
 
-    private final String id;
+    private String id;
+    private final boolean explicitId;
     private final Severity severity;
     private final String rule;
     private final String ruleSet;
@@ -27,10 +34,12 @@ public class Issue {
     private final Instant detectedAt;
 
     private Issue(Builder builder) {
-        this.id = builder.id != null ? builder.id : UUID.randomUUID().toString();
+        StringPool pool = StringPool.shared();
+        this.id = builder.id;
+        this.explicitId = builder.id != null;
         this.severity = builder.severity != null ? builder.severity : Severity.INFO;
-        this.rule = Objects.requireNonNull(builder.rule, "Rule cannot be null");
-        this.ruleSet = builder.ruleSet;
+        this.rule = pool.intern(Objects.requireNonNull(builder.rule, "Rule cannot be null"));
+        this.ruleSet = pool.intern(builder.ruleSet);
         this.message = Objects.requireNonNull(builder.message, "Message cannot be null");
         this.description = builder.description;
         this.filePath = builder.filePath;
@@ -40,8 +49,8 @@ public class Issue {
         this.endColumn = builder.endColumn;
         this.codeSnippet = builder.codeSnippet;
         this.suggestion = builder.suggestion;
-        this.analyzer = builder.analyzer != null ? builder.analyzer : "Unknown";
-        this.documentationUrl = builder.documentationUrl;
+        this.analyzer = builder.analyzer != null ? pool.intern(builder.analyzer) : "Unknown";
+        this.documentationUrl = pool.intern(builder.documentationUrl);
         this.detectedAt = builder.detectedAt != null ? builder.detectedAt : Instant.now();
     }
 
@@ -49,8 +58,29 @@ public class Issue {
         return new Builder();
     }
 
+    /**
+     * Returns the issue id. Unless set explicitly, it is derived from the issue's location, rule
+     * and message, so the same finding gets the same id in every run.
+     */
+    public String getId() {
+        String result = id;
+        if (result == null) {
+            String fingerprint = analyzer + '\n' + rule + '\n' + filePath + '\n'
+                    + startLine + ':' + startColumn + '-' + endLine + ':' + endColumn + '\n' + message;
+            result = UUID.nameUUIDFromBytes(fingerprint.getBytes(StandardCharsets.UTF_8)).toString();
+            id = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the id was set explicitly instead of derived.
+     */
+    boolean hasExplicitId() {
+        return explicitId;
+    }
+
     // Getters
-    public String getId() { return id; }
     public Severity getSeverity() { return severity; }
     public String getRule() { return rule; }
     public String getRuleSet() { return ruleSet; }
@@ -141,6 +171,10 @@ public class Issue {
         public Builder suggestion(String suggestion) { this.suggestion = suggestion; return this; }
         public Builder analyzer(String analyzer) { this.analyzer = analyzer; return this; }
         public Builder documentationUrl(String documentationUrl) { this.documentationUrl = documentationUrl; return this; }
+
+        /**
+         * Sets the detection time; analyzers pass the run's start time so all issues share one instance.
+         */
         public Builder detectedAt(Instant detectedAt) { this.detectedAt = detectedAt; return this; }
 
         public Issue build() {
@@ -0,0 +1,92 @@
+package com.sta.core.engine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects issues published from many threads without a shared lock.
+ * Every publishing thread appends to its own buffer; the buffers are sorted independently and
+ * k-way merged once at the end, so the final order does not depend on thread scheduling.
+ * Buffers are columnar {@link IssueStore.Builder}s, so a published {@link Issue} is not kept
+ * alive: until the merge, the collector holds about as much as the final store, and the merge
+ * copies rows without creating issues. Buffers belong to the collector, not to the threads, so
+ * long-lived pool threads do not keep them alive once the collector is done.
+ */
+public class IssueCollector implements IssueSink {
+
+    /**
+     * Deterministic issue order: file, line, column, rule, then every remaining field as a tie-breaker.
+     */
+    public static final Comparator<Issue> ORDER = Comparator
+            .comparing(Issue::getFilePath, nullsFirst())
+            .thenComparingInt(Issue::getStartLine)
+            .thenComparingInt(Issue::getStartColumn)
+            .thenComparing(Issue::getRule)
+            .thenComparing(Issue::getAnalyzer, nullsFirst())
+            .thenComparingInt(Issue::getEndLine)
+            .thenComparingInt(Issue::getEndColumn)
+            .thenComparing(Issue::getSeverity)
+            .thenComparing(Issue::getMessage);
+
+    private final Map<Thread, IssueStore.Builder> buffers = new ConcurrentHashMap<>();
+
+    @Override
+    public void accept(Issue issue) {
+        Thread thread = Thread.currentThread();
+        IssueStore.Builder buffer = buffers.get(thread);
+        if (buffer == null) {
+            // Only the owning thread adds to its buffer, so an unsynchronized builder is enough
+            buffer = buffers.computeIfAbsent(thread, t -> IssueStore.builder());
+        }
+        buffer.add(issue);
+    }
+
+    /**
+     * Merges all buffers into a store in {@link #ORDER} and empties the collector.
+     * Must only be called after all publishing threads have finished.
+     */
+    public IssueStore toStore() {
+        List<IssueStore.Builder> runs = new ArrayList<>();
+        List<int[]> orders = new ArrayList<>();
+        int total = 0;
+        List<IssueStore.Builder> drained = new ArrayList<>(buffers.values());
+        buffers.clear();
+        for (IssueStore.Builder run : drained) {
+            if (run.size() > 0) {
+                runs.add(run);
+                orders.add(run.sortedRows());
+                total += run.size();
+            }
+        }
+
+        // Heads of all runs, smallest first; each entry is {run, position in the run's order}
+        IssueStore.Builder merged = new IssueStore.Builder(total);
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) ->
+                runs.get(a[0]).compareRows(orders.get(a[0])[a[1]], runs.get(b[0]), orders.get(b[0])[b[1]]));
+        for (int i = 0; i < runs.size(); i++) {
+            heads.add(new int[]{i, 0});
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            int[] order = orders.get(head[0]);
+            merged.addRow(runs.get(head[0]), order[head[1]]);
+            if (++head[1] < order.length) {
+                heads.add(head);
+            }
+        }
+        return merged.build();
+    }
+
+    /**
+     * Merges all buffers into one list in {@link #ORDER} and empties the collector.
+     * Must only be called after all publishing threads have finished. The issues are views of a
+     * store and are created on access.
+     */
+    public List<Issue> toList() {
+        return toStore().asList();
+    }
+
+    private static Comparator<String> nullsFirst() {
+        return Comparator.nullsFirst(Comparator.naturalOrder());
+    }
+}
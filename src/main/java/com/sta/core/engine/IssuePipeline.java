@@ -0,0 +1,108 @@
+package com.sta.core.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Delivers published issues to subscribers on a single dispatcher thread.
+ * The hand-off queue is bounded: when subscribers fall behind, publishing analyzers block until
+ * there is room again, which keeps the number of issues in flight bounded. Should the dispatcher
+ * die, publishing fails instead of waiting forever for room.
+ */
+public class IssuePipeline implements IssueSink, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssuePipeline.class);
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final Issue END = Issue.builder().rule("end").message("end").build();
+
+    private final BlockingQueue<Issue> queue;
+    private final List<Consumer<Issue>> subscribers;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    public IssuePipeline(List<Consumer<Issue>> subscribers) {
+        this(subscribers, DEFAULT_CAPACITY);
+    }
+
+    public IssuePipeline(List<Consumer<Issue>> subscribers, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.subscribers = new ArrayList<>(subscribers);
+        this.dispatcher = new Thread(this::dispatch, "sta-issue-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Publishes an issue, waiting while the queue is full and the dispatcher is still running.
+     */
+    @Override
+    public void accept(Issue issue) {
+        if (closed) {
+            throw new IllegalStateException("Issue pipeline is closed");
+        }
+        try {
+            enqueue(issue);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing issue", e);
+        }
+    }
+
+    private void enqueue(Issue issue) throws InterruptedException {
+        while (!queue.offer(issue, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!dispatcher.isAlive()) {
+                throw new IllegalStateException("Issue dispatcher has stopped");
+            }
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                Issue issue = queue.take();
+                if (issue == END) {
+                    return;
+                }
+                for (Consumer<Issue> subscriber : subscribers) {
+                    try {
+                        subscriber.accept(issue);
+                    } catch (Throwable e) {
+                        // Any failure of one subscriber must not stop delivery to the others
+                        logger.warn("Issue subscriber failed: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until every published issue was delivered, then stops the dispatcher.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            enqueue(END);
+            dispatcher.join();
+        } catch (IllegalStateException e) {
+            logger.warn("Issue dispatcher stopped before all issues were delivered");
+        } catch (InterruptedException e) {
+            dispatcher.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.sta.core.engine;
+
+/**
+ * Receives issues as analyzers find them.
+ * Implementations must be thread-safe; analyzers may publish from several worker threads.
+ * A sink may block to slow down producers that are faster than its consumers.
+ */
+@FunctionalInterface
+public interface IssueSink {
+
+    void accept(Issue issue);
+
+    /**
+     * Signals that an analyzer finished the file and published all of its issues.
+     * Not called for files that failed, timed out or were skipped, whose issues are incomplete.
+     * The path is the absolute path that the file's issues carry.
+     */
+    default void fileCompleted(String filePath) {
+    }
+}
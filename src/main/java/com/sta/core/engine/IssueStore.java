@@ -0,0 +1,431 @@
+package com.sta.core.engine;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented, immutable storage of the issues of one result.
+ * Locations are kept in int arrays, severities in a byte array and repeating strings as ids into
+ * per-store dictionaries. The store takes over the builder's arrays instead of copying them.
+ * A bitmap per severity is built once, so severity views only visit matching rows; other
+ * aggregates come from {@link IssueSummary}. {@link Issue} objects are created on access as views
+ * of a row.
+ */
+public final class IssueStore {
+
+    private static final Severity[] SEVERITIES = Severity.values();
+    private static final int NONE = -1;
+
+    private final int size;
+    private final byte[] severity;
+    private final int[] rule;
+    private final int[] ruleSet;
+    private final int[] message;
+    private final int[] description;
+    private final int[] file;
+    private final int[] startLine;
+    private final int[] endLine;
+    private final int[] startColumn;
+    private final int[] endColumn;
+    private final int[] codeSnippet;
+    private final int[] suggestion;
+    private final int[] analyzer;
+    private final int[] documentationUrl;
+    private final int[] detectedAt;
+    private final Map<Integer, String> explicitIds;
+
+    private final Dictionary<String> strings;
+    private final Dictionary<Instant> instants;
+
+    private final BitSet[] bySeverity;
+
+    private final List<Issue> all;
+
+    /**
+     * Takes over the builder's arrays; they may be longer than {@code size}, rows past it are unused.
+     */
+    private IssueStore(Builder builder) {
+        this.size = builder.size;
+        this.severity = builder.severity;
+        this.rule = builder.rule;
+        this.ruleSet = builder.ruleSet;
+        this.message = builder.message;
+        this.description = builder.description;
+        this.file = builder.file;
+        this.startLine = builder.startLine;
+        this.endLine = builder.endLine;
+        this.startColumn = builder.startColumn;
+        this.endColumn = builder.endColumn;
+        this.codeSnippet = builder.codeSnippet;
+        this.suggestion = builder.suggestion;
+        this.analyzer = builder.analyzer;
+        this.documentationUrl = builder.documentationUrl;
+        this.detectedAt = builder.detectedAt;
+        this.explicitIds = builder.explicitIds;
+        this.strings = builder.strings;
+        this.instants = builder.instants;
+
+        this.bySeverity = new BitSet[SEVERITIES.length];
+        for (int i = 0; i < bySeverity.length; i++) {
+            bySeverity[i] = new BitSet();
+        }
+        for (int row = 0; row < size; row++) {
+            bySeverity[severity[row]].set(row);
+        }
+
+        this.all = new AllRows();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a store holding the given issues in iteration order.
+     */
+    public static IssueStore of(Collection<Issue> issues) {
+        Builder builder = builder();
+        for (Issue issue : issues) {
+            builder.add(issue);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the issue in the given row.
+     */
+    public Issue get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return Issue.builder()
+                .id(explicitIds.get(row))
+                .severity(SEVERITIES[severity[row]])
+                .rule(strings.get(rule[row]))
+                .ruleSet(strings.get(ruleSet[row]))
+                .message(strings.get(message[row]))
+                .description(strings.get(description[row]))
+                .filePath(strings.get(file[row]))
+                .startLine(startLine[row])
+                .endLine(endLine[row])
+                .startColumn(startColumn[row])
+                .endColumn(endColumn[row])
+                .codeSnippet(strings.get(codeSnippet[row]))
+                .suggestion(strings.get(suggestion[row]))
+                .analyzer(strings.get(analyzer[row]))
+                .documentationUrl(strings.get(documentationUrl[row]))
+                .detectedAt(instants.get(detectedAt[row]))
+                .build();
+    }
+
+    public Severity getSeverity(int row) { return SEVERITIES[severity[row]]; }
+    public String getRule(int row) { return strings.get(rule[row]); }
+    public String getRuleSet(int row) { return strings.get(ruleSet[row]); }
+    public String getFilePath(int row) { return strings.get(file[row]); }
+    public String getAnalyzer(int row) { return strings.get(analyzer[row]); }
+    public int getStartLine(int row) { return startLine[row]; }
+
+    /**
+     * Returns all issues as a read-only list view.
+     */
+    public List<Issue> asList() {
+        return all;
+    }
+
+    /**
+     * Returns the number of issues of one severity, a popcount over its bitmap.
+     */
+    public int count(Severity severity) {
+        return bySeverity[severity.ordinal()].cardinality();
+    }
+
+    /**
+     * Returns the issues of one severity as a read-only list view.
+     */
+    public List<Issue> withSeverity(Severity severity) {
+        return view(bySeverity[severity.ordinal()]);
+    }
+
+    /**
+     * Returns the rows whose issue matches the predicate.
+     */
+    public BitSet select(Predicate<Issue> predicate) {
+        BitSet rows = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(get(row))) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a read-only list view of the given rows.
+     */
+    public List<Issue> view(BitSet rows) {
+        return new RowList(rows);
+    }
+
+    /**
+     * List of all issues in row order, created on access.
+     */
+    private final class AllRows extends AbstractList<Issue> implements RandomAccess {
+        @Override
+        public Issue get(int index) {
+            return IssueStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * List of the issues in a set of rows, created on access.
+     */
+    private final class RowList extends AbstractList<Issue> implements RandomAccess {
+        private final int[] rows;
+
+        RowList(BitSet bits) {
+            this.rows = bits.stream().toArray();
+        }
+
+        @Override
+        public Issue get(int index) {
+            return IssueStore.this.get(rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+    }
+
+    /**
+     * Assigns dense ids to distinct values; null maps to {@link #NONE}.
+     */
+    private static final class Dictionary<T> {
+        private final List<T> values = new ArrayList<>();
+        private final Map<T, Integer> ids = new HashMap<>();
+
+        int add(T value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        T get(int id) {
+            return id == NONE ? null : values.get(id);
+        }
+    }
+
+    /**
+     * Appends issues row by row. A builder builds one store, which takes over its arrays.
+     */
+    public static class Builder {
+        private int size;
+        private byte[] severity;
+        private int[] rule;
+        private int[] ruleSet;
+        private int[] message;
+        private int[] description;
+        private int[] file;
+        private int[] startLine;
+        private int[] endLine;
+        private int[] startColumn;
+        private int[] endColumn;
+        private int[] codeSnippet;
+        private int[] suggestion;
+        private int[] analyzer;
+        private int[] documentationUrl;
+        private int[] detectedAt;
+        private final Map<Integer, String> explicitIds = new HashMap<>();
+        private final Dictionary<String> strings = new Dictionary<>();
+        private final Dictionary<Instant> instants = new Dictionary<>();
+        private boolean built;
+
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * Creates a builder with room for the given number of rows, so a store of known size is built
+         * without growing.
+         */
+        Builder(int capacity) {
+            int initial = Math.max(1, capacity);
+            severity = new byte[initial];
+            rule = new int[initial];
+            ruleSet = new int[initial];
+            message = new int[initial];
+            description = new int[initial];
+            file = new int[initial];
+            startLine = new int[initial];
+            endLine = new int[initial];
+            startColumn = new int[initial];
+            endColumn = new int[initial];
+            codeSnippet = new int[initial];
+            suggestion = new int[initial];
+            analyzer = new int[initial];
+            documentationUrl = new int[initial];
+            detectedAt = new int[initial];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Builder add(Issue issue) {
+            if (built) {
+                throw new IllegalStateException("Store already built");
+            }
+            if (size == rule.length) {
+                grow();
+            }
+            int row = size++;
+            severity[row] = (byte) issue.getSeverity().ordinal();
+            rule[row] = strings.add(issue.getRule());
+            ruleSet[row] = strings.add(issue.getRuleSet());
+            message[row] = strings.add(issue.getMessage());
+            description[row] = strings.add(issue.getDescription());
+            file[row] = strings.add(issue.getFilePath());
+            startLine[row] = issue.getStartLine();
+            endLine[row] = issue.getEndLine();
+            startColumn[row] = issue.getStartColumn();
+            endColumn[row] = issue.getEndColumn();
+            codeSnippet[row] = strings.add(issue.getCodeSnippet());
+            suggestion[row] = strings.add(issue.getSuggestion());
+            analyzer[row] = strings.add(issue.getAnalyzer());
+            documentationUrl[row] = strings.add(issue.getDocumentationUrl());
+            detectedAt[row] = instants.add(issue.getDetectedAt());
+            if (issue.hasExplicitId()) {
+                explicitIds.put(row, issue.getId());
+            }
+            return this;
+        }
+
+        /**
+         * Appends a row of another builder, without creating an {@link Issue} for it.
+         */
+        void addRow(Builder source, int sourceRow) {
+            if (built) {
+                throw new IllegalStateException("Store already built");
+            }
+            if (size == rule.length) {
+                grow();
+            }
+            int row = size++;
+            Dictionary<String> from = source.strings;
+            severity[row] = source.severity[sourceRow];
+            rule[row] = strings.add(from.get(source.rule[sourceRow]));
+            ruleSet[row] = strings.add(from.get(source.ruleSet[sourceRow]));
+            message[row] = strings.add(from.get(source.message[sourceRow]));
+            description[row] = strings.add(from.get(source.description[sourceRow]));
+            file[row] = strings.add(from.get(source.file[sourceRow]));
+            startLine[row] = source.startLine[sourceRow];
+            endLine[row] = source.endLine[sourceRow];
+            startColumn[row] = source.startColumn[sourceRow];
+            endColumn[row] = source.endColumn[sourceRow];
+            codeSnippet[row] = strings.add(from.get(source.codeSnippet[sourceRow]));
+            suggestion[row] = strings.add(from.get(source.suggestion[sourceRow]));
+            analyzer[row] = strings.add(from.get(source.analyzer[sourceRow]));
+            documentationUrl[row] = strings.add(from.get(source.documentationUrl[sourceRow]));
+            detectedAt[row] = instants.add(source.instants.get(source.detectedAt[sourceRow]));
+            String explicitId = source.explicitIds.get(sourceRow);
+            if (explicitId != null) {
+                explicitIds.put(row, explicitId);
+            }
+        }
+
+        /**
+         * Compares a row of this builder with a row of another in the order of
+         * {@link IssueCollector#ORDER}.
+         */
+        int compareRows(int row, Builder other, int otherRow) {
+            int result = compareNullsFirst(strings.get(file[row]), other.strings.get(other.file[otherRow]));
+            if (result == 0) {
+                result = Integer.compare(startLine[row], other.startLine[otherRow]);
+            }
+            if (result == 0) {
+                result = Integer.compare(startColumn[row], other.startColumn[otherRow]);
+            }
+            if (result == 0) {
+                result = strings.get(rule[row]).compareTo(other.strings.get(other.rule[otherRow]));
+            }
+            if (result == 0) {
+                result = compareNullsFirst(strings.get(analyzer[row]), other.strings.get(other.analyzer[otherRow]));
+            }
+            if (result == 0) {
+                result = Integer.compare(endLine[row], other.endLine[otherRow]);
+            }
+            if (result == 0) {
+                result = Integer.compare(endColumn[row], other.endColumn[otherRow]);
+            }
+            if (result == 0) {
+                result = Integer.compare(severity[row], other.severity[otherRow]);
+            }
+            if (result == 0) {
+                result = strings.get(message[row]).compareTo(other.strings.get(other.message[otherRow]));
+            }
+            return result;
+        }
+
+        /**
+         * Returns the row numbers of this builder sorted in the order of {@link #compareRows}.
+         */
+        int[] sortedRows() {
+            return IntStream.range(0, size).boxed()
+                    .sorted((a, b) -> compareRows(a, this, b))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        private static int compareNullsFirst(String a, String b) {
+            if (a == null || b == null) {
+                return a == null ? (b == null ? 0 : -1) : 1;
+            }
+            return a.compareTo(b);
+        }
+
+        private void grow() {
+            int capacity = rule.length * 2;
+            severity = Arrays.copyOf(severity, capacity);
+            rule = Arrays.copyOf(rule, capacity);
+            ruleSet = Arrays.copyOf(ruleSet, capacity);
+            message = Arrays.copyOf(message, capacity);
+            description = Arrays.copyOf(description, capacity);
+            file = Arrays.copyOf(file, capacity);
+            startLine = Arrays.copyOf(startLine, capacity);
+            endLine = Arrays.copyOf(endLine, capacity);
+            startColumn = Arrays.copyOf(startColumn, capacity);
+            endColumn = Arrays.copyOf(endColumn, capacity);
+            codeSnippet = Arrays.copyOf(codeSnippet, capacity);
+            suggestion = Arrays.copyOf(suggestion, capacity);
+            analyzer = Arrays.copyOf(analyzer, capacity);
+            documentationUrl = Arrays.copyOf(documentationUrl, capacity);
+            detectedAt = Arrays.copyOf(detectedAt, capacity);
+        }
+
+        public IssueStore build() {
+            if (built) {
+                throw new IllegalStateException("Store already built");
+            }
+            built = true;
+            return new IssueStore(this);
+        }
+    }
+}
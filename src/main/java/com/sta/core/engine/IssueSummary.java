@@ -0,0 +1,145 @@
+package com.sta.core.engine;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable aggregate counts of a set of issues, computed in a single pass.
+ * Reports, quality gates and the score read these instead of rescanning the issues.
+ */
+public final class IssueSummary {
+
+    private static final Pattern SOURCE_ROOT = Pattern.compile(".*?/src/(?:main|test)/(?:java|kotlin|scala|groovy)/");
+    private static final String DEFAULT_PACKAGE = "(default)";
+
+    private final int total;
+    private final Map<Severity, Integer> bySeverity;
+    private final Map<Severity, Integer> atOrAbove;
+    private final Map<String, Integer> byRule;
+    private final Map<String, Integer> byRuleSet;
+    private final Map<String, Integer> byFile;
+    private final Map<String, Integer> byPackage;
+    private final Map<String, Integer> byAnalyzer;
+
+    private IssueSummary(int total, Map<Severity, Integer> bySeverity, Map<String, Integer> byRule,
+                         Map<String, Integer> byRuleSet, Map<String, Integer> byFile,
+                         Map<String, Integer> byPackage, Map<String, Integer> byAnalyzer) {
+        this.total = total;
+        this.bySeverity = Collections.unmodifiableMap(bySeverity);
+        this.byRule = Collections.unmodifiableMap(byRule);
+        this.byRuleSet = Collections.unmodifiableMap(byRuleSet);
+        this.byFile = Collections.unmodifiableMap(byFile);
+        this.byPackage = Collections.unmodifiableMap(byPackage);
+        this.byAnalyzer = Collections.unmodifiableMap(byAnalyzer);
+
+        // Severities are declared from most to least severe
+        Map<Severity, Integer> cumulative = new EnumMap<>(Severity.class);
+        int running = 0;
+        for (Severity severity : Severity.values()) {
+            running += bySeverity.get(severity);
+            cumulative.put(severity, running);
+        }
+        this.atOrAbove = Collections.unmodifiableMap(cumulative);
+    }
+
+    /**
+     * Summarizes the given rows of a store, or all rows when rows is null.
+     * Packages are derived from file paths relative to the source root, if known.
+     */
+    public static IssueSummary of(IssueStore store, BitSet rows, Path sourceRoot) {
+        Map<Severity, Integer> bySeverity = new EnumMap<>(Severity.class);
+        for (Severity severity : Severity.values()) {
+            bySeverity.put(severity, 0);
+        }
+        Map<String, Integer> byRule = new HashMap<>();
+        Map<String, Integer> byRuleSet = new HashMap<>();
+        Map<String, Integer> byFile = new HashMap<>();
+        Map<String, Integer> byPackage = new HashMap<>();
+        Map<String, Integer> byAnalyzer = new HashMap<>();
+        Map<String, String> packageOfFile = new HashMap<>();
+
+        String root = sourceRoot != null
+                ? sourceRoot.toAbsolutePath().normalize().toString().replace('\\', '/') + "/" : null;
+
+        int total = 0;
+        int row = rows != null ? rows.nextSetBit(0) : 0;
+        while (row >= 0 && row < store.size()) {
+            total++;
+            bySeverity.merge(store.getSeverity(row), 1, Integer::sum);
+            byRule.merge(store.getRule(row), 1, Integer::sum);
+            String ruleSet = store.getRuleSet(row);
+            if (ruleSet != null) {
+                byRuleSet.merge(ruleSet, 1, Integer::sum);
+            }
+            String file = store.getFilePath(row);
+            if (file != null) {
+                byFile.merge(file, 1, Integer::sum);
+                byPackage.merge(packageOfFile.computeIfAbsent(file, f -> packageOf(f, root)), 1, Integer::sum);
+            }
+            byAnalyzer.merge(store.getAnalyzer(row), 1, Integer::sum);
+
+            row = rows != null ? rows.nextSetBit(row + 1) : row + 1;
+        }
+
+        return new IssueSummary(total, bySeverity, byRule, byRuleSet, byFile, byPackage, byAnalyzer);
+    }
+
+    /**
+     * Returns the package (or directory) of a file, e.g. com.example.util for .../src/main/java/com/example/util/X.java.
+     */
+    static String packageOf(String filePath, String root) {
+        String path = filePath.replace('\\', '/');
+        if (root != null && path.startsWith(root)) {
+            path = "/" + path.substring(root.length());
+        }
+        Matcher matcher = SOURCE_ROOT.matcher(path);
+        if (matcher.lookingAt()) {
+            path = path.substring(matcher.end());
+        }
+        int lastSlash = path.lastIndexOf('/');
+        String directory = lastSlash > 0 ? path.substring(path.charAt(0) == '/' ? 1 : 0, lastSlash) : "";
+        return directory.isEmpty() ? DEFAULT_PACKAGE : directory.replace('/', '.');
+    }
+
+    public int getTotal() { return total; }
+
+    public int getCount(Severity severity) {
+        return bySeverity.get(severity);
+    }
+
+    /**
+     * Returns the number of issues of the given severity or a more severe one.
+     */
+    public int getCountAtOrAbove(Severity severity) {
+        return atOrAbove.get(severity);
+    }
+
+    public Map<Severity, Integer> getCountsBySeverity() { return bySeverity; }
+    public Map<String, Integer> getCountsByRule() { return byRule; }
+    public Map<String, Integer> getCountsByRuleSet() { return byRuleSet; }
+    public Map<String, Integer> getCountsByFile() { return byFile; }
+    public Map<String, Integer> getCountsByPackage() { return byPackage; }
+    public Map<String, Integer> getCountsByAnalyzer() { return byAnalyzer; }
+
+    /**
+     * Returns the most violated rules with their counts, highest first.
+     */
+    public List<Map.Entry<String, Integer>> getTopRules(int limit) {
+        return top(byRule, limit);
+    }
+
+    /**
+     * Returns the files with the most issues, highest first.
+     */
+    public List<Map.Entry<String, Integer>> getTopFiles(int limit) {
+        return top(byFile, limit);
+    }
+
+    private static List<Map.Entry<String, Integer>> top(Map<String, Integer> counts, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+}
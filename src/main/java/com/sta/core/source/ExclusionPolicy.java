@@ -0,0 +1,374 @@
+package com.sta.core.source;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides which files and directories of a source tree are walked, compiled once per tree.
+ * Combines built-in exclusions (.git, target, build, node_modules, ...), the root .gitignore and
+ * .staignore files, and the include and exclude globs of the rule configuration. Exclusion rules
+ * use .gitignore syntax and are applied in that order, so later rules (e.g. "!build/") override
+ * earlier ones. Walkers check directories before entering them and skip excluded subtrees whole.
+ * Paths are relative to the tree root and use '/' as separator. Lines that do not compile, such as
+ * a reversed range, are skipped with a warning.
+ * <p>
+ * Like Git, the .gitignore only applies to untracked files. When a tree on disk is in a Git work
+ * tree, files in its index and the directories holding them are exempt from .gitignore rules,
+ * while the built-in exclusions, .staignore and configured patterns still apply; untracked files
+ * below an ignored directory stay ignored. Trees read from Git objects hold only tracked files and
+ * do not apply the .gitignore at all (see GitTreeInventory), so both kinds of inventory select the
+ * same tracked files.
+ */
+public final class ExclusionPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExclusionPolicy.class);
+
+    public static final String GIT_IGNORE = ".gitignore";
+    public static final String STA_IGNORE = ".staignore";
+
+    private static final List<String> BUILT_IN = Arrays.asList(
+            ".git/", "target/", "build/", "node_modules/", ".idea/", ".gradle/"
+    );
+
+    private final List<Rule> rules;
+    private final List<Pattern> includes;
+    // Paths relative to the root that Git tracks, or null if the tree is not in a work tree
+    private final Set<String> trackedFiles;
+    private final Set<String> trackedDirectories;
+
+    private ExclusionPolicy(List<Rule> rules, List<Pattern> includes, Set<String> trackedFiles) {
+        this.rules = rules;
+        this.includes = includes;
+        this.trackedFiles = trackedFiles;
+        this.trackedDirectories = trackedFiles != null ? parentsOf(trackedFiles) : null;
+    }
+
+    /**
+     * Returns the policy with only the built-in exclusions.
+     */
+    public static ExclusionPolicy defaults() {
+        return compile(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * Returns a policy that excludes nothing, not even the built-in directories.
+     */
+    static ExclusionPolicy none() {
+        return new ExclusionPolicy(Collections.emptyList(), Collections.emptyList(), null);
+    }
+
+    /**
+     * Compiles a policy from the lines of the tree's ignore files and the configured globs.
+     * An empty include list includes every file that is not excluded.
+     */
+    public static ExclusionPolicy compile(List<String> ignoreLines, Collection<String> includePatterns,
+                                          Collection<String> excludePatterns) {
+        return compile(Collections.emptyList(), ignoreLines, includePatterns, excludePatterns, null);
+    }
+
+    /**
+     * Compiles a policy whose .gitignore lines only apply to files that are not in trackedFiles.
+     * A null trackedFiles means that nothing is tracked.
+     */
+    static ExclusionPolicy compile(List<String> gitIgnoreLines, List<String> ignoreLines,
+                                   Collection<String> includePatterns, Collection<String> excludePatterns,
+                                   Set<String> trackedFiles) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : BUILT_IN) {
+            addRule(rules, line, false);
+        }
+        for (String line : gitIgnoreLines) {
+            addRule(rules, line, true);
+        }
+        for (String line : ignoreLines) {
+            addRule(rules, line, false);
+        }
+        for (String pattern : excludePatterns) {
+            addRule(rules, pattern, false);
+        }
+
+        List<Pattern> includes = new ArrayList<>();
+        for (String pattern : includePatterns) {
+            String glob = pattern.trim();
+            if (!glob.isEmpty()) {
+                try {
+                    includes.add(Pattern.compile(anchor(glob) + toRegex(stripLeadingSlash(glob))));
+                } catch (PatternSyntaxException e) {
+                    logger.warn("Ignoring invalid include pattern '{}': {}", glob, e.getDescription());
+                }
+            }
+        }
+        return new ExclusionPolicy(rules, includes, trackedFiles);
+    }
+
+    /**
+     * Compiles the policy of a tree on disk, reading its root .gitignore and .staignore, and the
+     * Git index if the tree is in a work tree.
+     */
+    public static ExclusionPolicy load(Path root, Collection<String> includePatterns,
+                                       Collection<String> excludePatterns) throws IOException {
+        return compile(readIgnoreFile(root.resolve(GIT_IGNORE)), readIgnoreFile(root.resolve(STA_IGNORE)),
+                includePatterns, excludePatterns, readTrackedFiles(root));
+    }
+
+    private static List<String> readIgnoreFile(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyList();
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return readLines(in);
+        }
+    }
+
+    /**
+     * Returns the paths below the root that the Git index tracks, relative to the root, or null if
+     * the root is not in a work tree or its index cannot be read.
+     */
+    static Set<String> readTrackedFiles(Path root) {
+        Path absoluteRoot = root.toAbsolutePath().normalize();
+        FileRepositoryBuilder builder = new FileRepositoryBuilder()
+                .readEnvironment()
+                .findGitDir(absoluteRoot.toFile());
+        if (builder.getGitDir() == null) {
+            return null;
+        }
+        try (Repository repository = builder.build()) {
+            if (repository.isBare()) {
+                return null;
+            }
+            Path workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+            if (!absoluteRoot.startsWith(workTree)) {
+                return null;
+            }
+            String prefix = normalize(workTree.relativize(absoluteRoot).toString());
+            if (!prefix.isEmpty()) {
+                prefix += "/";
+            }
+
+            Set<String> tracked = new HashSet<>();
+            DirCache index = repository.readDirCache();
+            for (int i = 0; i < index.getEntryCount(); i++) {
+                String path = index.getEntry(i).getPathString();
+                if (path.startsWith(prefix)) {
+                    tracked.add(path.substring(prefix.length()));
+                }
+            }
+            return tracked;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot read the Git index of {}: {}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Set<String> parentsOf(Set<String> files) {
+        Set<String> directories = new HashSet<>();
+        for (String file : files) {
+            for (int slash = file.lastIndexOf('/'); slash > 0; slash = file.lastIndexOf('/', slash - 1)) {
+                if (!directories.add(file.substring(0, slash))) {
+                    // The parents of a known directory are known too
+                    break;
+                }
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * Reads the lines of an ignore file.
+     */
+    static List<String> readLines(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns true if the directory and everything below it are skipped.
+     */
+    public boolean isExcludedDirectory(String relativePath) {
+        return isIgnored(normalize(relativePath), true);
+    }
+
+    /**
+     * Returns true if the file is skipped, because an exclusion matches it or no include does.
+     */
+    public boolean isExcludedFile(String relativePath) {
+        String path = normalize(relativePath);
+        if (isIgnored(path, false)) {
+            return true;
+        }
+        if (includes.isEmpty()) {
+            return false;
+        }
+        for (Pattern include : includes) {
+            if (include.matcher(path).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isIgnored(String path, boolean directory) {
+        if (trackedFiles == null) {
+            return matches(path, directory, true);
+        }
+        boolean tracked = directory ? trackedDirectories.contains(path) : trackedFiles.contains(path);
+        if (matches(path, directory, !tracked)) {
+            return true;
+        }
+        if (tracked) {
+            return false;
+        }
+        // Directories holding tracked files are walked even if the .gitignore matches them
+        for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+            if (matches(path.substring(0, slash), true, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String path, boolean directory, boolean withGitIgnore) {
+        boolean ignored = false;
+        for (Rule rule : rules) {
+            if ((withGitIgnore || !rule.gitIgnore) && ignored == rule.negated
+                    && (directory || !rule.directoryOnly) && rule.pattern.matcher(path).matches()) {
+                ignored = !rule.negated;
+            }
+        }
+        return ignored;
+    }
+
+    private static void addRule(List<Rule> rules, String line, boolean gitIgnore) {
+        String pattern = line.trim();
+        if (pattern.isEmpty() || pattern.startsWith("#")) {
+            return;
+        }
+        boolean negated = pattern.startsWith("!");
+        if (negated) {
+            pattern = pattern.substring(1);
+        }
+        boolean directoryOnly = pattern.endsWith("/");
+        if (directoryOnly) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+        }
+        if (pattern.isEmpty()) {
+            return;
+        }
+        try {
+            rules.add(new Rule(Pattern.compile(anchor(pattern) + toRegex(stripLeadingSlash(pattern))),
+                    negated, directoryOnly, gitIgnore));
+        } catch (PatternSyntaxException e) {
+            // e.g. a reversed range such as [z-a]
+            logger.warn("Ignoring invalid exclusion pattern '{}': {}", line.trim(), e.getDescription());
+        }
+    }
+
+    /**
+     * Patterns containing a slash are relative to the root; others match at any depth.
+     */
+    private static String anchor(String pattern) {
+        return pattern.contains("/") ? "" : "(?:.*/)?";
+    }
+
+    private static String stripLeadingSlash(String pattern) {
+        return pattern.startsWith("/") ? pattern.substring(1) : pattern;
+    }
+
+    /**
+     * Translates a glob into a regular expression: ** spans directories, * and ? stay within one.
+     */
+    static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (c == '?') {
+                regex.append("[^/]");
+                i++;
+            } else if (c == '[') {
+                int start = i + 1;
+                boolean negated = start < glob.length() && (glob.charAt(start) == '!' || glob.charAt(start) == '^');
+                if (negated) {
+                    start++;
+                }
+                // A ']' right after the opening bracket is part of the set
+                int end = glob.indexOf(']', start < glob.length() && glob.charAt(start) == ']' ? start + 1 : start);
+                if (end < 0) {
+                    regex.append("\\[");
+                    i++;
+                } else {
+                    regex.append(negated ? "[^" : "[").append(toCharacterClass(glob.substring(start, end))).append(']');
+                    i = end + 1;
+                }
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+                i++;
+            }
+        }
+        return regex.toString();
+    }
+
+    /**
+     * Escapes the members of a bracket expression, keeping only '-' between two members as a range.
+     */
+    private static String toCharacterClass(String set) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < set.length(); i++) {
+            char c = set.charAt(i);
+            if (c == '-' && i > 0 && i < set.length() - 1) {
+                result.append('-');
+            } else if (Character.isLetterOrDigit(c)) {
+                result.append(c);
+            } else {
+                result.append('\\').append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String normalize(String relativePath) {
+        return relativePath.replace('\\', '/');
+    }
+
+    private static final class Rule {
+        private final Pattern pattern;
+        private final boolean negated;
+        private final boolean directoryOnly;
+        private final boolean gitIgnore;
+
+        Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean gitIgnore) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+            this.gitIgnore = gitIgnore;
+        }
+    }
+}
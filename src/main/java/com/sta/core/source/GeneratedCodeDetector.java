@@ -0,0 +1,185 @@
+package com.sta.core.source;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes generated and vendored source files from their path and their first few KB.
+ * Covers @Generated annotations and "DO NOT EDIT" headers, protobuf, ANTLR and JAXB output, and
+ * files below vendor or third-party directories. Code generators put these markers at the top of
+ * the file, so the rest is never read. Inventories capture the header while they count lines
+ * through {@link HeaderChannel}, so detection does not open files a second time.
+ */
+public final class GeneratedCodeDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedCodeDetector.class);
+
+    static final int HEADER_BYTES = 4096;
+
+    private static final Set<String> VENDORED_DIRECTORIES = new HashSet<>(Arrays.asList(
+            "vendor", "third_party", "third-party", "thirdparty", "generated-sources", "generated-test-sources"
+    ));
+
+    // Directories below which a vendored directory name is a Java package, not a vendored tree
+    private static final Set<String> SOURCE_ROOTS = new HashSet<>(Arrays.asList("src", "source", "sources"));
+
+    private static final List<Pattern> HEADER_MARKERS = Arrays.asList(
+            Pattern.compile("@(?:javax\\.annotation\\.(?:processing\\.)?)?Generated\\b"),
+            Pattern.compile("@generated\\b"),
+            Pattern.compile("Generated by the protocol buffer compiler"),
+            Pattern.compile("Generated from \\S+ by ANTLR"),
+            Pattern.compile("(?i)Architecture for XML Binding|Implementation of JAXB")
+    );
+
+    // Prose markers also occur in hand-written comments, so they only count in the leading comment block
+    private static final List<Pattern> LEADING_COMMENT_MARKERS = Arrays.asList(
+            Pattern.compile("DO NOT EDIT"),
+            Pattern.compile("(?i)this (?:file|class) (?:was|is) (?:auto-?)?generated")
+    );
+
+    private GeneratedCodeDetector() {
+    }
+
+    /**
+     * Returns true if the file is below a vendored directory or starts with a generator's marker.
+     * Only source code files are inspected; unreadable files count as hand-written.
+     */
+    public static boolean isGenerated(SourceInventory.SourceFile file) {
+        if (isVendored(file.getRelativePath())) {
+            return true;
+        }
+        if (!SourceInventory.isLineCounted(file.getExtension())) {
+            return false;
+        }
+        try (InputStream in = file.openStream()) {
+            byte[] buffer = new byte[HEADER_BYTES];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            return hasGeneratedHeader(buffer, length);
+        } catch (IOException e) {
+            logger.debug("Cannot read header of {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the path runs through a vendored directory at the top of the tree or of a
+     * module, or in a build output directory such as target/generated-sources. Below a source root
+     * (src/...) the same names are package names and do not count.
+     */
+    static boolean isVendored(String relativePath) {
+        for (String segment : relativePath.replace('\\', '/').split("/")) {
+            if (SOURCE_ROOTS.contains(segment)) {
+                return false;
+            }
+            if (VENDORED_DIRECTORIES.contains(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the first bytes of a file for a generator's marker.
+     */
+    static boolean hasGeneratedHeader(byte[] header, int length) {
+        // Markers are ASCII, so any single-byte decoding finds them
+        return hasGeneratedHeader(new String(header, 0, length, StandardCharsets.ISO_8859_1));
+    }
+
+    static boolean hasGeneratedHeader(String header) {
+        for (Pattern marker : HEADER_MARKERS) {
+            if (marker.matcher(header).find()) {
+                return true;
+            }
+        }
+        String leadingComments = leadingComments(header);
+        for (Pattern marker : LEADING_COMMENT_MARKERS) {
+            if (marker.matcher(leadingComments).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the comments before the first token of code, such as a license or generator banner.
+     */
+    static String leadingComments(String header) {
+        // A UTF-8 byte order mark, as decoded by hasGeneratedHeader(byte[], int)
+        int i = header.startsWith("\u00EF\u00BB\u00BF") ? 3 : 0;
+        while (true) {
+            while (i < header.length() && Character.isWhitespace(header.charAt(i))) {
+                i++;
+            }
+            if (header.startsWith("//", i)) {
+                int end = header.indexOf('\n', i);
+                i = end < 0 ? header.length() : end + 1;
+            } else if (header.startsWith("/*", i)) {
+                int end = header.indexOf("*/", i + 2);
+                i = end < 0 ? header.length() : end + 2;
+            } else {
+                return header.substring(0, i);
+            }
+        }
+    }
+
+    /**
+     * Channel that records the first {@link #HEADER_BYTES} bytes read through it, so the header of
+     * a file can be checked while the file is read for another purpose.
+     */
+    static final class HeaderChannel implements ReadableByteChannel {
+        private final ReadableByteChannel channel;
+        private final byte[] header = new byte[HEADER_BYTES];
+        private int length;
+
+        HeaderChannel(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            int start = destination.position();
+            int read = channel.read(destination);
+            if (read > 0 && length < header.length) {
+                ByteBuffer copy = destination.duplicate();
+                copy.position(start);
+                int count = Math.min(read, header.length - length);
+                copy.get(header, length, count);
+                length += count;
+            }
+            return read;
+        }
+
+        /**
+         * Returns true if the bytes read so far start with a generator's marker.
+         */
+        boolean hasGeneratedHeader() {
+            return GeneratedCodeDetector.hasGeneratedHeader(header, length);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -2,14 +2,25 @@ package com.sta.core.source;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.OrTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -25,8 +36,19 @@ public class GitSourceProvider implements SourceProvider {
             "(?:https?://)?(?:www\\.)?github\\.com/([^/]+)/([^/]+?)(?:\\.git)?/?$"
     );
 
+    private final MirrorStore mirrorStore;
+    private final WorkspaceManager workspaces;
     private SourceMetadata metadata;
 
+    public GitSourceProvider() {
+        this(MirrorStore.openDefault(), WorkspaceManager.openDefault());
+    }
+
+    public GitSourceProvider(MirrorStore mirrorStore, WorkspaceManager workspaces) {
+        this.mirrorStore = mirrorStore;
+        this.workspaces = workspaces;
+    }
+
     @Override
     public String getType() {
         return "git";
@@ -45,39 +67,261 @@ public class GitSourceProvider implements SourceProvider {
     @Override
     public Path retrieve(String sourceIdentifier, Consumer<Double> progressCallback)
             throws SourceRetrievalException {
+        return retrieve(sourceIdentifier, RetrievalOptions.defaults(), progressCallback);
+    }
+
+    @Override
+    public Path retrieve(String sourceIdentifier, RetrievalOptions options, Consumer<Double> progressCallback)
+            throws SourceRetrievalException {
 
         logger.info("Cloning repository: {}", sourceIdentifier);
 
         try {
-            // Parse repo info
+            Path workspace = retrieveWorkspace(sourceIdentifier, options, false, progressCallback);
+
+            logger.info("Clone completed successfully");
+            progressCallback.accept(1.0);
+
+            return workspace;
+
+        } catch (Exception e) {
+            logger.error("Failed to clone repository: {}", e.getMessage(), e);
+            throw new SourceRetrievalException("Failed to clone repository: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the files straight from Git objects when requested, without checking out a working tree.
+     * The repository is a bare clone, or the local mirror itself when mirrors are enabled.
+     */
+    @Override
+    public SourceInventory retrieveInventory(String sourceIdentifier, RetrievalOptions options,
+                                             Consumer<Double> progressCallback) throws SourceRetrievalException {
+        if (!options.isObjectDatabase()) {
+            return SourceProvider.super.retrieveInventory(sourceIdentifier, options, progressCallback);
+        }
+
+        logger.info("Reading repository without checkout: {}", sourceIdentifier);
+
+        try {
             String repoUrl = normalizeUrl(sourceIdentifier);
-            String repoName = extractRepoName(sourceIdentifier);
 
-            this.metadata = new SourceMetadata(repoName, "", sourceIdentifier);
+            Path gitDir;
+            if (options.isUseMirror()) {
+                // Fetches only add objects, so the mirror can be read after the lock is released
+                this.metadata = new SourceMetadata(extractRepoName(sourceIdentifier), "", sourceIdentifier);
+                try (MirrorStore.MirrorLock lock = mirrorStore.lock(repoUrl)) {
+                    gitDir = mirrorStore.update(lock, repoUrl, new JGitProgressMonitor(progressCallback));
+                }
+            } else {
+                gitDir = retrieveWorkspace(sourceIdentifier, options, true, progressCallback);
+            }
+
+            Repository repository = new FileRepositoryBuilder()
+                    .setGitDir(gitDir.toFile())
+                    .setMustExist(true)
+                    .build();
+
+            String revision = options.getBranch() != null ? toBranchRef(options.getBranch()) : Constants.HEAD;
+            try {
+                SourceInventory inventory = GitTreeInventory.read(repository, revision,
+                        options.getIncludePatterns(), options.getExcludePatterns());
+                progressCallback.accept(1.0);
+                return inventory;
+            } catch (IOException | RuntimeException e) {
+                repository.close();
+                throw e;
+            }
+
+        } catch (Exception e) {
+            logger.error("Failed to read repository: {}", e.getMessage(), e);
+            throw new SourceRetrievalException("Failed to read repository: " + e.getMessage(), e);
+        }
+    }
 
-            // Create temp directory
-            Path targetDir = Files.createTempDirectory("sta-" + repoName + "-");
-            targetDir.toFile().deleteOnExit();
+    /**
+     * Clones into a managed workspace, reusing the previous clone when the remote revision is unchanged.
+     * With mirrors enabled the mirror is updated first and the workspace is cloned from it; the history is
+     * complete in the mirror, so the local clone ignores the requested depth.
+     */
+    private Path retrieveWorkspace(String sourceIdentifier, RetrievalOptions options, boolean bare,
+                                   Consumer<Double> progressCallback) throws IOException, GitAPIException {
+        String repoUrl = normalizeUrl(sourceIdentifier);
+        String repoName = extractRepoName(sourceIdentifier);
 
-            logger.info("Cloning to: {}", targetDir);
+        this.metadata = new SourceMetadata(repoName, "", sourceIdentifier);
 
-            // Clone repository
+        String key = WorkspaceManager.keyFor(repoName, describe(repoUrl, options, bare));
+
+        if (!options.isUseMirror()) {
+            return cloneWorkspace(key, sourceIdentifier, repoUrl, options, bare,
+                    new JGitProgressMonitor(progressCallback));
+        }
+
+        RetrievalOptions localOptions = RetrievalOptions.builder()
+                .branch(options.getBranch())
+                .singleBranch(options.isSingleBranch())
+                .fetchTags(options.isFetchTags())
+                .sparseExtensions(options.getSparseExtensions())
+                .build();
+
+        try (MirrorStore.MirrorLock lock = mirrorStore.lock(repoUrl)) {
+            Path mirror = mirrorStore.update(lock, repoUrl,
+                    new JGitProgressMonitor(p -> progressCallback.accept(p * 0.7)));
+            return cloneWorkspace(key, sourceIdentifier, mirror.toUri().toString(), localOptions, bare,
+                    new JGitProgressMonitor(p -> progressCallback.accept(0.7 + p * 0.3)));
+        }
+    }
+
+    private Path cloneWorkspace(String key, String sourceIdentifier, String uri, RetrievalOptions options,
+                                boolean bare, ProgressMonitor monitor) throws IOException, GitAPIException {
+        String revision = findRevision(uri, options.getBranch());
+        Optional<Path> reused = workspaces.reuse(key, revision);
+        if (reused.isPresent()) {
+            return reused.get();
+        }
+
+        Path workspace = workspaces.allocate(key);
+        // Differs from the key while another run still reads that workspace
+        String allocatedKey = workspace.getFileName().toString();
+        logger.info("Cloning to: {}", workspace);
+
+        try {
             CloneCommand cloneCommand = Git.cloneRepository()
-                    .setURI(repoUrl)
-                    .setDirectory(targetDir.toFile())
-                    .setProgressMonitor(new JGitProgressMonitor(progressCallback));
+                    .setURI(uri)
+                    .setDirectory(workspace.toFile())
+                    .setBare(bare)
+                    .setProgressMonitor(monitor);
+            configureClone(cloneCommand, uri, options);
 
-            Git git = cloneCommand.call();
-            git.close();
+            try (Git git = cloneCommand.call()) {
+                if (options.isSparse() && !bare) {
+                    checkoutSparse(git, options.getSparseExtensions());
+                }
+            }
+        } catch (IOException | GitAPIException | RuntimeException e) {
+            workspaces.discard(allocatedKey);
+            throw e;
+        }
 
-            logger.info("Clone completed successfully");
-            progressCallback.accept(1.0);
+        workspaces.commit(allocatedKey, sourceIdentifier, revision);
+        return workspace;
+    }
 
-            return targetDir;
+    /**
+     * Describes everything that determines the content of a workspace.
+     */
+    private String describe(String repoUrl, RetrievalOptions options, boolean bare) {
+        return repoUrl
+                + "|branch=" + options.getBranch()
+                + "|single=" + options.isSingleBranch()
+                + "|depth=" + options.getDepth()
+                + "|tags=" + options.isFetchTags()
+                + "|sparse=" + new TreeSet<>(options.getSparseExtensions())
+                + "|bare=" + bare;
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to clone repository: {}", e.getMessage(), e);
-            throw new SourceRetrievalException("Failed to clone repository: " + e.getMessage(), e);
+    /**
+     * Returns the commit the branch (or HEAD) of the repository points to, or null if unknown.
+     */
+    private String findRevision(String uri, String branch) {
+        try {
+            Map<String, Ref> refs = Git.lsRemoteRepository()
+                    .setRemote(uri)
+                    .callAsMap();
+            Ref ref = refs.get(branch != null ? toBranchRef(branch) : Constants.HEAD);
+            return ref != null && ref.getObjectId() != null ? ref.getObjectId().name() : null;
+        } catch (GitAPIException e) {
+            logger.debug("Cannot list remote refs of {}: {}", uri, e.getMessage());
+            return null;
+        }
+    }
+
+    private void configureClone(CloneCommand cloneCommand, String repoUrl, RetrievalOptions options)
+            throws GitAPIException {
+        String branch = options.getBranch();
+
+        if (options.isSingleBranch()) {
+            if (branch == null) {
+                branch = findDefaultBranch(repoUrl);
+            }
+            cloneCommand.setCloneAllBranches(false);
+            if (branch != null) {
+                cloneCommand.setBranchesToClone(Collections.singletonList(toBranchRef(branch)));
+            }
+        }
+        if (branch != null) {
+            cloneCommand.setBranch(toBranchRef(branch));
+        }
+        if (options.getDepth() > 0) {
+            cloneCommand.setDepth(options.getDepth());
+        }
+        if (!options.isFetchTags()) {
+            cloneCommand.setTagOption(TagOpt.NO_TAGS);
+        }
+        if (options.isSparse()) {
+            cloneCommand.setNoCheckout(true);
+        }
+    }
+
+    /**
+     * Asks the remote which branch its HEAD points to.
+     */
+    private String findDefaultBranch(String repoUrl) throws GitAPIException {
+        Map<String, Ref> refs = Git.lsRemoteRepository()
+                .setRemote(repoUrl)
+                .callAsMap();
+
+        Ref head = refs.get(Constants.HEAD);
+        if (head == null) {
+            return null;
+        }
+        if (head.isSymbolic()) {
+            return head.getTarget().getName();
+        }
+        for (Ref ref : refs.values()) {
+            if (ref.getName().startsWith(Constants.R_HEADS) && head.getObjectId().equals(ref.getObjectId())) {
+                return ref.getName();
+            }
+        }
+        return null;
+    }
+
+    private String toBranchRef(String branch) {
+        return branch.startsWith(Constants.R_REFS) ? branch : Constants.R_HEADS + branch;
+    }
+
+    /**
+     * Checks out only the files with the given extensions from HEAD.
+     */
+    private void checkoutSparse(Git git, Set<String> extensions) throws IOException, GitAPIException {
+        Repository repository = git.getRepository();
+        ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+        if (head == null) {
+            return;
+        }
+
+        List<TreeFilter> suffixFilters = new ArrayList<>();
+        for (String extension : extensions) {
+            suffixFilters.add(PathSuffixFilter.create("." + extension));
+        }
+
+        List<String> paths = new ArrayList<>();
+        try (TreeWalk walk = new TreeWalk(repository)) {
+            walk.addTree(head);
+            walk.setRecursive(true);
+            walk.setFilter(suffixFilters.size() == 1 ? suffixFilters.get(0) : OrTreeFilter.create(suffixFilters));
+            while (walk.next()) {
+                paths.add(walk.getPathString());
+            }
+        }
+
+        logger.info("Sparse checkout of {} files", paths.size());
+        if (!paths.isEmpty()) {
+            git.checkout()
+                    .setStartPoint(Constants.HEAD)
+                    .addPaths(paths)
+                    .call();
         }
     }
 
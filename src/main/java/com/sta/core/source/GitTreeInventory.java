@@ -0,0 +1,130 @@
+package com.sta.core.source;
+
+import com.sta.core.source.SourceInventory.SourceFile;
+import com.sta.util.LineCounter;
+import com.sta.util.LineCounter.LineStats;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds a source inventory straight from the object database of a Git repository.
+ * Files are streamed from their blobs, so no working tree is checked out and nothing is written to disk.
+ */
+public class GitTreeInventory {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitTreeInventory.class);
+
+    /**
+     * Reads the tree of the given commit. The inventory takes ownership of the repository and
+     * closes it when the inventory is closed.
+     * File paths are resolved against the repository directory but do not exist on disk.
+     * Every file in the tree is tracked, so the committed .gitignore does not apply: it only describes
+     * untracked files, and a tracked file it matches is still part of the project. The built-in
+     * exclusions, the committed .staignore and the given patterns apply, and excluded subtrees are
+     * not entered.
+     */
+    public static SourceInventory read(Repository repository, String revision,
+                                       Collection<String> includePatterns,
+                                       Collection<String> excludePatterns) throws IOException {
+        ObjectId commitId = repository.resolve(revision + "^{commit}");
+        if (commitId == null) {
+            throw new IOException("Cannot resolve Git revision: " + revision);
+        }
+
+        Path root = repository.getDirectory().toPath().toAbsolutePath().normalize();
+        List<SourceFile> files = new ArrayList<>();
+        LineCounter lineCounter = new LineCounter();
+
+        try (RevWalk revWalk = new RevWalk(repository);
+             ObjectReader reader = repository.newObjectReader();
+             TreeWalk walk = new TreeWalk(reader)) {
+            RevCommit commit = revWalk.parseCommit(commitId);
+            long lastModified = commit.getCommitTime() * 1000L;
+            ExclusionPolicy policy = ExclusionPolicy.compile(readIgnoreLines(reader, commit.getTree()),
+                    includePatterns, excludePatterns);
+
+            walk.addTree(commit.getTree());
+            walk.setRecursive(false);
+
+            while (walk.next()) {
+                if (walk.isSubtree()) {
+                    if (!policy.isExcludedDirectory(walk.getPathString())) {
+                        walk.enterSubtree();
+                    }
+                    continue;
+                }
+
+                FileMode mode = walk.getFileMode(0);
+                if (mode != FileMode.REGULAR_FILE && mode != FileMode.EXECUTABLE_FILE) {
+                    continue;
+                }
+
+                String relativePath = walk.getPathString();
+                if (policy.isExcludedFile(relativePath)) {
+                    continue;
+                }
+
+                ObjectId blobId = walk.getObjectId(0);
+                String extension = SourceInventory.extensionOf(walk.getNameString());
+
+                LineStats lines = LineStats.EMPTY;
+                boolean generated = GeneratedCodeDetector.isVendored(relativePath);
+                if (SourceInventory.isLineCounted(extension)) {
+                    // The header is checked for generator markers while the blob is inflated anyway
+                    try (InputStream in = reader.open(blobId, Constants.OBJ_BLOB).openStream();
+                         GeneratedCodeDetector.HeaderChannel channel =
+                                 new GeneratedCodeDetector.HeaderChannel(Channels.newChannel(in))) {
+                        lines = lineCounter.count(channel);
+                        generated |= channel.hasGeneratedHeader();
+                    }
+                }
+
+                SourceFile file = new SourceFile(
+                        root.resolve(relativePath),
+                        relativePath,
+                        extension,
+                        reader.getObjectSize(blobId, Constants.OBJ_BLOB),
+                        lastModified,
+                        lines,
+                        () -> repository.open(blobId, Constants.OBJ_BLOB).openStream()
+                );
+                file.setGenerated(generated);
+                // The blob id already hashes the content, so caches need not inflate the blob again
+                file.setContentHash(blobId.name());
+                files.add(file);
+            }
+        }
+
+        logger.info("Inventory of {} at {} contains {} files", root, revision, files.size());
+        return SourceInventory.of(root, files, repository);
+    }
+
+    private static List<String> readIgnoreLines(ObjectReader reader, RevTree tree) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (TreeWalk entry = TreeWalk.forPath(reader, ExclusionPolicy.STA_IGNORE, tree)) {
+            if (entry != null && !entry.isSubtree()) {
+                try (InputStream in = reader.open(entry.getObjectId(0), Constants.OBJ_BLOB).openStream()) {
+                    lines.addAll(ExclusionPolicy.readLines(in));
+                }
+            }
+        }
+        return lines;
+    }
+}
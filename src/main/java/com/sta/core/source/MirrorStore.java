@@ -0,0 +1,156 @@
+package com.sta.core.source;
+
+import com.sta.config.AppConfig;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local store of bare mirror repositories.
+ * Each remote is cloned once and afterwards only fetched incrementally; working trees are cloned
+ * from the local mirror. A lock file makes concurrent runs on the same repository safe,
+ * within one JVM and across processes.
+ */
+public class MirrorStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MirrorStore.class);
+
+    private static final String MIRRORS_DIR = "mirrors";
+    private static final ConcurrentHashMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    public MirrorStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the store in the user's configuration directory.
+     */
+    public static MirrorStore openDefault() {
+        return new MirrorStore(AppConfig.getConfigDirectory().resolve(MIRRORS_DIR));
+    }
+
+    /**
+     * Returns the mirror location of a repository URL, e.g. mirrors/github.com/owner/repo.git.
+     */
+    public Path mirrorPath(String repoUrl) {
+        String host = "local";
+        String path = repoUrl;
+        try {
+            URI uri = new URI(repoUrl);
+            if (uri.getHost() != null) {
+                host = uri.getHost();
+                path = uri.getPath();
+            }
+        } catch (URISyntaxException e) {
+            // Not a URI, use the raw identifier
+        }
+
+        path = path.replace('\\', '/').replaceAll("^/+", "").replaceAll("[^A-Za-z0-9._/-]", "_");
+        if (path.isEmpty()) {
+            path = "repository";
+        }
+        if (!path.endsWith(".git")) {
+            path = path + ".git";
+        }
+        return directory.resolve(host).resolve(path.replace("..", "_")).normalize();
+    }
+
+    /**
+     * Locks the mirror of a repository until the returned lock is closed.
+     */
+    public MirrorLock lock(String repoUrl) throws IOException {
+        Path mirror = mirrorPath(repoUrl);
+        Files.createDirectories(mirror.getParent());
+
+        ReentrantLock localLock = LOCAL_LOCKS.computeIfAbsent(mirror, p -> new ReentrantLock());
+        localLock.lock();
+        try {
+            Path lockFile = mirror.resolveSibling(mirror.getFileName() + ".lock");
+            FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                FileLock fileLock = channel.lock();
+                return new MirrorLock(mirror, localLock, channel, fileLock);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            localLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the mirror or fetches what changed since the last run. The caller must hold the lock.
+     */
+    public Path update(MirrorLock lock, String repoUrl, ProgressMonitor monitor) throws IOException, GitAPIException {
+        Path mirror = lock.getMirror();
+
+        if (Files.exists(mirror.resolve("HEAD"))) {
+            logger.info("Fetching updates into mirror: {}", mirror);
+            try (Git git = Git.open(mirror.toFile())) {
+                git.fetch()
+                        .setRemote("origin")
+                        .setRemoveDeletedRefs(true)
+                        .setProgressMonitor(monitor)
+                        .call();
+            }
+        } else {
+            logger.info("Creating mirror of {} in {}", repoUrl, mirror);
+            try (Git git = Git.cloneRepository()
+                    .setURI(repoUrl)
+                    .setDirectory(mirror.toFile())
+                    .setMirror(true)
+                    .setProgressMonitor(monitor)
+                    .call()) {
+                logger.info("Mirror created: {}", git.getRepository().getDirectory());
+            }
+        }
+
+        return mirror;
+    }
+
+    /**
+     * Exclusive access to one mirror.
+     */
+    public static class MirrorLock implements AutoCloseable {
+        private final Path mirror;
+        private final ReentrantLock localLock;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        MirrorLock(Path mirror, ReentrantLock localLock, FileChannel channel, FileLock fileLock) {
+            this.mirror = mirror;
+            this.localLock = localLock;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        public Path getMirror() {
+            return mirror;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileLock.release();
+                channel.close();
+            } finally {
+                localLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.sta.core.source;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks a directory tree on a fork/join pool with one task per directory.
+ * Subdirectories are forked as they are listed, so idle workers steal them from busy ones and
+ * wide or deep trees are listed in parallel. Each file is handed to the visitor on the worker
+ * that found it, so per-file work such as counting lines runs while the rest of the tree is
+ * still being listed. Like Files.walkFileTree, symbolic links are not followed and unreadable
+ * entries are skipped.
+ */
+final class ParallelTreeWalker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTreeWalker.class);
+
+    /**
+     * Receives the files of the tree. Called concurrently from several worker threads.
+     */
+    interface FileVisitor {
+        void visitFile(Path file, String relativePath, BasicFileAttributes attrs);
+    }
+
+    private final Path root;
+    private final ExclusionPolicy policy;
+
+    ParallelTreeWalker(Path root, ExclusionPolicy policy) {
+        this.root = root;
+        this.policy = policy;
+    }
+
+    /**
+     * Walks the tree and returns once every file has been visited.
+     * Listing is mostly waiting for the file system, so the pool has at least a few workers even on small machines.
+     */
+    void walk(FileVisitor visitor) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            pool.invoke(new DirectoryTask(root, visitor));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path directory;
+        private final FileVisitor visitor;
+
+        DirectoryTask(Path directory, FileVisitor visitor) {
+            this.directory = directory;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        logger.debug("Cannot read {}: {}", entry, e.getMessage());
+                        continue;
+                    }
+
+                    String relativePath = root.relativize(entry).toString();
+                    if (attrs.isDirectory()) {
+                        if (!policy.isExcludedDirectory(relativePath)) {
+                            DirectoryTask task = new DirectoryTask(entry, visitor);
+                            task.fork();
+                            subdirectories.add(task);
+                        }
+                    } else if (attrs.isRegularFile() && !policy.isExcludedFile(relativePath)) {
+                        visitor.visitFile(entry, relativePath, attrs);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.debug("Cannot read {}: {}", directory, e.getMessage());
+            }
+
+            for (DirectoryTask task : subdirectories) {
+                task.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.sta.core.source;
+
+import com.sta.util.LineCounter;
+import com.sta.util.LineCounter.LineStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+/**
+ * Inventory of the files in a source tree, built in a single walk.
+ * Shared by the engine and all analyzers so the tree is only traversed once per run.
+ * Files are usually on disk, but may also be read from another store such as a Git object database.
+ */
+public class SourceInventory implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceInventory.class);
+
+    private static final Set<String> LINE_COUNTED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "java", "kt", "scala", "groovy"
+    ));
+
+    private final Path root;
+    private final List<SourceFile> files;
+    private final AutoCloseable resource;
+
+    private SourceInventory(Path root, List<SourceFile> files, AutoCloseable resource) {
+        this.root = root;
+        this.files = Collections.unmodifiableList(files);
+        this.resource = resource;
+    }
+
+    /**
+     * Creates an inventory of files that are read through their own content source.
+     * The resource backing the contents is released when the inventory is closed.
+     */
+    static SourceInventory of(Path root, List<SourceFile> files, AutoCloseable resource) {
+        return new SourceInventory(root, files, resource);
+    }
+
+    /**
+     * Walks the tree below the given root and records every file that its .gitignore and .staignore
+     * and the built-in exclusions do not exclude.
+     */
+    public static SourceInventory scan(Path root) throws IOException {
+        return scan(root, ExclusionPolicy.load(root, Collections.emptyList(), Collections.emptyList()));
+    }
+
+    /**
+     * Walks the tree below the given root and records every file that the policy does not exclude.
+     * Excluded directories are pruned without being listed. Directories are listed in parallel and
+     * lines are counted as soon as a file is found; files are ordered by relative path.
+     */
+    public static SourceInventory scan(Path root, ExclusionPolicy policy) throws IOException {
+        Queue<SourceFile> found = new ConcurrentLinkedQueue<>();
+        ThreadLocal<LineCounter> lineCounters = ThreadLocal.withInitial(LineCounter::new);
+
+        new ParallelTreeWalker(root, policy).walk((file, relativePath, attrs) ->
+                found.add(createSourceFile(file, relativePath, attrs, lineCounters.get())));
+
+        List<SourceFile> files = new ArrayList<>(found);
+        files.sort(Comparator.comparing(SourceFile::getRelativePath));
+
+        logger.info("Inventory of {} contains {} files", root, files.size());
+        return new SourceInventory(root, files, null);
+    }
+
+    /**
+     * Returns the extensions of source code files, whose lines are counted.
+     */
+    public static Set<String> getSourceExtensions() {
+        return Collections.unmodifiableSet(LINE_COUNTED_EXTENSIONS);
+    }
+
+    /**
+     * Checks if the lines of files with the given extension are counted.
+     */
+    static boolean isLineCounted(String extension) {
+        return LINE_COUNTED_EXTENSIONS.contains(extension);
+    }
+
+    private static SourceFile createSourceFile(Path file, String relativePath, BasicFileAttributes attrs,
+                                               LineCounter lineCounter) {
+        String extension = extensionOf(file.getFileName().toString());
+
+        LineStats lines = LineStats.EMPTY;
+        boolean generated = GeneratedCodeDetector.isVendored(relativePath);
+        if (isLineCounted(extension)) {
+            // The header is checked for generator markers in the same read
+            try (GeneratedCodeDetector.HeaderChannel channel = new GeneratedCodeDetector.HeaderChannel(
+                    FileChannel.open(file, StandardOpenOption.READ))) {
+                lines = lineCounter.count(channel);
+                generated |= channel.hasGeneratedHeader();
+            } catch (IOException e) {
+                logger.debug("Cannot count lines of {}: {}", file, e.getMessage());
+            }
+        }
+
+        SourceFile sourceFile = new SourceFile(file, relativePath, extension,
+                attrs.size(), attrs.lastModifiedTime().toMillis(), lines);
+        sourceFile.setGenerated(generated);
+        return sourceFile;
+    }
+
+    static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot + 1).toLowerCase() : "";
+    }
+
+    public Path getRoot() { return root; }
+    public List<SourceFile> getFiles() { return files; }
+
+    /**
+     * Returns the files with the given extension (without the dot, lower case).
+     */
+    public List<SourceFile> getFiles(String extension) {
+        List<SourceFile> result = new ArrayList<>();
+        for (SourceFile file : files) {
+            if (file.getExtension().equals(extension)) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new inventory over the same root containing only matching files.
+     * The filtered inventory shares the contents of this one and does not release them.
+     */
+    public SourceInventory filter(Predicate<SourceFile> predicate) {
+        List<SourceFile> result = new ArrayList<>();
+        for (SourceFile file : files) {
+            if (predicate.test(file)) {
+                result.add(file);
+            }
+        }
+        return new SourceInventory(root, result, null);
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * Returns file counts grouped by extension.
+     */
+    public Map<String, Integer> getFileCountByExtension() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (SourceFile file : files) {
+            String ext = file.getExtension().isEmpty() ? "other" : file.getExtension();
+            counts.merge(ext, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the total number of lines in source code files.
+     */
+    public int getTotalLines() {
+        return getLineStats().totalLines();
+    }
+
+    /**
+     * Returns the summed line counts of all source code files.
+     */
+    public LineStats getLineStats() {
+        int total = 0;
+        int blank = 0;
+        int comment = 0;
+        int code = 0;
+        for (SourceFile file : files) {
+            LineStats lines = file.getLineStats();
+            total += lines.totalLines();
+            blank += lines.blankLines();
+            comment += lines.commentLines();
+            code += lines.codeLines();
+        }
+        return new LineStats(total, blank, comment, code);
+    }
+
+    /**
+     * Releases the resource backing the file contents, if any.
+     */
+    @Override
+    public void close() {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.debug("Cannot close inventory of {}: {}", root, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Opens the content of a file that does not live on disk.
+     */
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * A single file recorded in the inventory.
+     */
+    public static class SourceFile {
+        private final Path path;
+        private final String relativePath;
+        private final String extension;
+        private final long size;
+        private final long lastModified;
+        private final LineStats lineStats;
+        private final ContentSource content;
+        private volatile Boolean generated;
+        private volatile String contentHash;
+
+        public SourceFile(Path path, String relativePath, String extension,
+                          long size, long lastModified, LineStats lineStats) {
+            this(path, relativePath, extension, size, lastModified, lineStats, null);
+        }
+
+        /**
+         * Creates a file whose content is read from the given source instead of its path.
+         */
+        public SourceFile(Path path, String relativePath, String extension,
+                          long size, long lastModified, LineStats lineStats, ContentSource content) {
+            this.path = path;
+            this.relativePath = relativePath;
+            this.extension = extension;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.lineStats = lineStats != null ? lineStats : LineStats.EMPTY;
+            this.content = content;
+        }
+
+        public Path getPath() { return path; }
+        public String getRelativePath() { return relativePath; }
+        public String getExtension() { return extension; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public LineStats getLineStats() { return lineStats; }
+        public int getLineCount() { return lineStats.totalLines(); }
+
+        /**
+         * Returns true if the file exists at its path; otherwise only {@link #openStream()} can read it.
+         */
+        public boolean isOnDisk() { return content == null; }
+
+        /**
+         * Returns true if the file looks generated or vendored. Inventories detect this while they
+         * read the file; otherwise it is detected on first call, then remembered.
+         */
+        public boolean isGenerated() {
+            Boolean result = generated;
+            if (result == null) {
+                result = GeneratedCodeDetector.isGenerated(this);
+                generated = result;
+            }
+            return result;
+        }
+
+        void setGenerated(boolean generated) {
+            this.generated = generated;
+        }
+
+        /**
+         * Records a hash the inventory already knows, such as the Git blob id, so the content is not
+         * read again to hash it.
+         */
+        void setContentHash(String contentHash) {
+            this.contentHash = contentHash;
+        }
+
+        /**
+         * Returns a hex hash identifying the file content: the Git blob id for files read from Git
+         * objects, otherwise the SHA-256, computed on first call and then remembered.
+         */
+        public String getContentHash() throws IOException {
+            String result = contentHash;
+            if (result == null) {
+                MessageDigest digest;
+                try {
+                    digest = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("SHA-256 not available", e);
+                }
+                try (InputStream in = openStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+                StringBuilder hex = new StringBuilder();
+                for (byte b : digest.digest()) {
+                    hex.append(String.format("%02x", b));
+                }
+                result = hex.toString();
+                contentHash = result;
+            }
+            return result;
+        }
+
+        /**
+         * Opens the file content, from disk or from its content source.
+         */
+        public InputStream openStream() throws IOException {
+            return content != null ? content.open() : Files.newInputStream(path);
+        }
+
+        @Override
+        public String toString() {
+            return relativePath;
+        }
+    }
+}
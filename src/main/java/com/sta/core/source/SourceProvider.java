@@ -1,7 +1,13 @@
 package com.sta.core.source;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -26,6 +32,32 @@ public interface SourceProvider {
     Path retrieve(String sourceIdentifier, Consumer<Double> progressCallback)
             throws SourceRetrievalException;
 
+    /**
+     * Retrieves source code to a local path, honoring the given options where supported.
+     * Providers that have nothing to tune ignore the options.
+     */
+    default Path retrieve(String sourceIdentifier, RetrievalOptions options, Consumer<Double> progressCallback)
+            throws SourceRetrievalException {
+        return retrieve(sourceIdentifier, progressCallback);
+    }
+
+    /**
+     * Retrieves source code and builds its file inventory.
+     * By default the source is retrieved to a local path and scanned; providers that can read
+     * files without writing them to disk override this. Excluded files are never walked.
+     */
+    default SourceInventory retrieveInventory(String sourceIdentifier, RetrievalOptions options,
+                                              Consumer<Double> progressCallback) throws SourceRetrievalException {
+        Path root = retrieve(sourceIdentifier, options, progressCallback);
+        try {
+            ExclusionPolicy policy = ExclusionPolicy.load(root,
+                    options.getIncludePatterns(), options.getExcludePatterns());
+            return SourceInventory.scan(root, policy);
+        } catch (IOException e) {
+            throw new SourceRetrievalException("Failed to scan " + root + ": " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Returns metadata about the source if available.
      */
@@ -62,4 +94,129 @@ public interface SourceProvider {
         public String getDescription() { return description; }
         public String getUrl() { return url; }
     }
+
+    /**
+     * Options controlling how much of a source is retrieved.
+     */
+    class RetrievalOptions {
+        private final int depth;
+        private final String branch;
+        private final boolean singleBranch;
+        private final boolean fetchTags;
+        private final Set<String> sparseExtensions;
+        private final boolean useMirror;
+        private final boolean objectDatabase;
+        private final List<String> includePatterns;
+        private final List<String> excludePatterns;
+
+        private RetrievalOptions(Builder builder) {
+            this.depth = builder.depth;
+            this.branch = builder.branch;
+            this.singleBranch = builder.singleBranch;
+            this.fetchTags = builder.fetchTags;
+            this.sparseExtensions = Collections.unmodifiableSet(new HashSet<>(builder.sparseExtensions));
+            this.useMirror = builder.useMirror;
+            this.objectDatabase = builder.objectDatabase;
+            this.includePatterns = Collections.unmodifiableList(new ArrayList<>(builder.includePatterns));
+            this.excludePatterns = Collections.unmodifiableList(new ArrayList<>(builder.excludePatterns));
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Returns options retrieving the complete source.
+         */
+        public static RetrievalOptions defaults() {
+            return builder().build();
+        }
+
+        public Builder toBuilder() {
+            return builder()
+                    .depth(depth)
+                    .branch(branch)
+                    .singleBranch(singleBranch)
+                    .fetchTags(fetchTags)
+                    .sparseExtensions(new HashSet<>(sparseExtensions))
+                    .useMirror(useMirror)
+                    .objectDatabase(objectDatabase)
+                    .includePatterns(includePatterns)
+                    .excludePatterns(excludePatterns);
+        }
+
+        /**
+         * Returns the history depth to fetch, or 0 for the full history.
+         */
+        public int getDepth() { return depth; }
+
+        /**
+         * Returns the branch to check out, or null for the default branch.
+         */
+        public String getBranch() { return branch; }
+        public boolean isSingleBranch() { return singleBranch; }
+        public boolean isFetchTags() { return fetchTags; }
+
+        /**
+         * Returns the file extensions to check out, or an empty set to check out everything.
+         */
+        public Set<String> getSparseExtensions() { return sparseExtensions; }
+        public boolean isSparse() { return !sparseExtensions.isEmpty(); }
+
+        /**
+         * Returns true to retrieve through a local mirror that is only fetched incrementally.
+         */
+        public boolean isUseMirror() { return useMirror; }
+
+        /**
+         * Returns true to read files from the repository's object database instead of a checkout.
+         */
+        public boolean isObjectDatabase() { return objectDatabase; }
+
+        /**
+         * Returns globs of the files to include in the inventory, or an empty list to include all files.
+         */
+        public List<String> getIncludePatterns() { return includePatterns; }
+
+        /**
+         * Returns .gitignore-style patterns of files and directories to leave out of the inventory.
+         */
+        public List<String> getExcludePatterns() { return excludePatterns; }
+
+        public static class Builder {
+            private int depth;
+            private String branch;
+            private boolean singleBranch;
+            private boolean fetchTags = true;
+            private Set<String> sparseExtensions = new HashSet<>();
+            private boolean useMirror;
+            private boolean objectDatabase;
+            private List<String> includePatterns = new ArrayList<>();
+            private List<String> excludePatterns = new ArrayList<>();
+
+            public Builder depth(int depth) { this.depth = depth; return this; }
+            public Builder branch(String branch) { this.branch = branch; return this; }
+            public Builder singleBranch(boolean singleBranch) { this.singleBranch = singleBranch; return this; }
+            public Builder fetchTags(boolean fetchTags) { this.fetchTags = fetchTags; return this; }
+            public Builder sparseExtensions(Set<String> sparseExtensions) { this.sparseExtensions = sparseExtensions; return this; }
+            public Builder useMirror(boolean useMirror) { this.useMirror = useMirror; return this; }
+            public Builder objectDatabase(boolean objectDatabase) { this.objectDatabase = objectDatabase; return this; }
+            public Builder includePatterns(List<String> includePatterns) { this.includePatterns = includePatterns; return this; }
+            public Builder excludePatterns(List<String> excludePatterns) { this.excludePatterns = excludePatterns; return this; }
+
+            /**
+             * Fetches only the tip of a single branch without tags.
+             */
+            public Builder shallow() {
+                this.depth = 1;
+                this.singleBranch = true;
+                this.fetchTags = false;
+                return this;
+            }
+
+            public RetrievalOptions build() {
+                return new RetrievalOptions(this);
+            }
+        }
+    }
 }
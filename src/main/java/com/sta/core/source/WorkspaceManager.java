@@ -0,0 +1,452 @@
+package com.sta.core.source;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sta.config.AppConfig;
+import org.eclipse.jgit.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the directories that retrieved sources are checked out to.
+ * Workspaces are kept between runs and reused while the retrieved revision is unchanged.
+ * When their total size exceeds the budget, the least recently used ones that are not
+ * in use are deleted. Several runs may read the same workspace, in this process or in others.
+ * Every use holds a lease, a lock on the workspace's lock file: shared while reading,
+ * exclusive while the workspace is retrieved or deleted. A workspace whose lock cannot be taken
+ * exclusively is never deleted or replaced. The recorded entries are re-read under an index
+ * lock for every change, so concurrent processes see each other's workspaces. Lock files are
+ * never deleted, since another process may be about to lock them.
+ */
+public class WorkspaceManager implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkspaceManager.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String WORKSPACES_DIR = "workspaces";
+    private static final String METADATA_SUFFIX = ".json";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String INDEX_LOCK = ".index" + LOCK_SUFFIX;
+    private static final long ORPHAN_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // A JVM cannot lock the same file twice, so all managers share their leases and take turns on the index
+    private static final Object JVM_LOCK = new Object();
+    private static final Map<Path, Lease> LEASES = new HashMap<>();
+
+    private final Path directory;
+    private final long budgetBytes;
+    private final Map<String, Integer> inUse = new HashMap<>();
+
+    public WorkspaceManager(Path directory, long budgetBytes) {
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Opens the workspaces in the user's configuration directory with the configured budget.
+     */
+    public static WorkspaceManager openDefault() {
+        return new WorkspaceManager(AppConfig.getConfigDirectory().resolve(WORKSPACES_DIR),
+                AppConfig.getInstance().getMaxWorkspaceBytes());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Derives a workspace key from a readable name and everything that determines the retrieved content.
+     */
+    public static String keyFor(String name, String descriptor) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(descriptor.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(name.replaceAll("[^A-Za-z0-9._-]", "_")).append('-');
+            for (int i = 0; i < 8; i++) {
+                key.append(String.format("%02x", hash[i]));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Returns the workspace of the key if it holds the given revision, and takes a shared lease on it.
+     */
+    public Optional<Path> reuse(String key, String revision) {
+        synchronized (JVM_LOCK) {
+            try (IndexLock ignored = lockIndex()) {
+                Map<String, WorkspaceEntry> entries = readEntries();
+                WorkspaceEntry entry = entries.get(key);
+                Path workspace = directory.resolve(key);
+                if (revision == null || entry == null || !revision.equals(entry.revision)
+                        || !Files.isDirectory(workspace) || !tryLease(key, false)) {
+                    return Optional.empty();
+                }
+
+                entry.lastUsed = System.currentTimeMillis();
+                saveEntry(key, entry);
+                logger.info("Reusing workspace {} at revision {}", workspace, revision);
+                return Optional.of(workspace);
+            } catch (IOException e) {
+                logger.warn("Cannot reuse workspace {}: {}", key, e.getMessage());
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Creates an empty workspace for the key, replacing any previous content, and takes an exclusive
+     * lease on it. While another run, in this or another process, still uses the workspace of the key,
+     * a new workspace is created next to it instead. The key of the returned workspace is its file name.
+     */
+    public Path allocate(String key) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (IndexLock ignored = lockIndex()) {
+                Map<String, WorkspaceEntry> entries = readEntries();
+                String allocated = key;
+                for (int i = 1; !tryLease(allocated, true); i++) {
+                    allocated = key + "-" + i;
+                }
+                if (!allocated.equals(key)) {
+                    logger.info("Workspace {} is in use, allocating {}", key, allocated);
+                }
+                Path workspace = directory.resolve(allocated);
+                try {
+                    delete(allocated, entries);
+                    Files.createDirectories(workspace);
+                } catch (IOException e) {
+                    releaseLease(allocated);
+                    throw e;
+                }
+                return workspace;
+            }
+        }
+    }
+
+    /**
+     * Records the revision retrieved into an allocated workspace, turns its lease into a shared one,
+     * then enforces the budget.
+     */
+    public void commit(String key, String source, String revision) {
+        synchronized (JVM_LOCK) {
+            try (IndexLock ignored = lockIndex()) {
+                Map<String, WorkspaceEntry> entries = readEntries();
+                WorkspaceEntry entry = new WorkspaceEntry();
+                entry.source = source;
+                entry.revision = revision;
+                entry.size = sizeOf(directory.resolve(key));
+                entry.lastUsed = System.currentTimeMillis();
+
+                entries.put(key, entry);
+                saveEntry(key, entry);
+                // Other processes wait for the index lock before they lock workspaces, so none gets in between
+                Lease lease = LEASES.get(lockFileOf(key));
+                if (lease != null && lease.exclusive) {
+                    lease.lock.release();
+                    lease.lock = lease.channel.lock(0, Long.MAX_VALUE, true);
+                    lease.exclusive = false;
+                }
+                evict(entries);
+            } catch (IOException e) {
+                logger.warn("Cannot record workspace {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes a workspace whose retrieval failed and releases its lease.
+     */
+    public void discard(String key) {
+        synchronized (JVM_LOCK) {
+            try (IndexLock ignored = lockIndex()) {
+                delete(key, readEntries());
+            } catch (IOException e) {
+                logger.warn("Cannot delete workspace {}: {}", key, e.getMessage());
+            } finally {
+                releaseLease(key);
+            }
+        }
+    }
+
+    /**
+     * Releases one use of the workspace at the given path. Other paths are ignored.
+     */
+    public void release(Path workspace) {
+        Path normalized = workspace.toAbsolutePath().normalize();
+        if (normalized.getParent() != null && normalized.getParent().equals(directory.toAbsolutePath().normalize())) {
+            synchronized (JVM_LOCK) {
+                releaseLease(normalized.getFileName().toString());
+            }
+        }
+    }
+
+    /**
+     * Releases all workspaces used through this manager and shrinks the store to the budget.
+     */
+    @Override
+    public void close() {
+        synchronized (JVM_LOCK) {
+            for (Map.Entry<String, Integer> use : new ArrayList<>(inUse.entrySet())) {
+                for (int i = 0; i < use.getValue(); i++) {
+                    releaseLease(use.getKey());
+                }
+            }
+            try (IndexLock ignored = lockIndex()) {
+                evict(readEntries());
+            } catch (IOException e) {
+                logger.warn("Cannot shrink workspaces in {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    private void evict(Map<String, WorkspaceEntry> entries) {
+        long total = 0;
+        for (WorkspaceEntry entry : entries.values()) {
+            total += entry.size;
+        }
+        if (total <= budgetBytes) {
+            return;
+        }
+
+        List<Map.Entry<String, WorkspaceEntry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+
+        for (Map.Entry<String, WorkspaceEntry> candidate : candidates) {
+            if (total <= budgetBytes) {
+                break;
+            }
+            try {
+                if (deleteIfUnused(candidate.getKey(), entries)) {
+                    total -= candidate.getValue().size;
+                    logger.info("Evicted workspace {} ({} bytes)", candidate.getKey(), candidate.getValue().size);
+                }
+            } catch (IOException e) {
+                logger.warn("Cannot evict workspace {}: {}", candidate.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes the workspace if no run in any process holds a lease on it.
+     */
+    private boolean deleteIfUnused(String key, Map<String, WorkspaceEntry> entries) throws IOException {
+        if (!tryLease(key, true)) {
+            return false;
+        }
+        try {
+            delete(key, entries);
+        } finally {
+            releaseLease(key);
+        }
+        return true;
+    }
+
+    private void delete(String key, Map<String, WorkspaceEntry> entries) throws IOException {
+        entries.remove(key);
+        Files.deleteIfExists(directory.resolve(key + METADATA_SUFFIX));
+        Path workspace = directory.resolve(key);
+        if (Files.exists(workspace)) {
+            // JGit's helper also removes the read-only pack files on Windows
+            FileUtils.delete(workspace.toFile(), FileUtils.RECURSIVE | FileUtils.RETRY);
+        }
+    }
+
+    /**
+     * Takes a lease on the workspace of the key. Returns false if a run in this or another process
+     * holds a conflicting one. Must be called with the JVM lock held.
+     */
+    private boolean tryLease(String key, boolean exclusive) throws IOException {
+        Path lockFile = lockFileOf(key);
+        Lease lease = LEASES.get(lockFile);
+        if (lease != null) {
+            if (exclusive || lease.exclusive) {
+                return false;
+            }
+            lease.count++;
+        } else {
+            Files.createDirectories(directory);
+            FileChannel channel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock(0, Long.MAX_VALUE, !exclusive);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            if (lock == null) {
+                channel.close();
+                return false;
+            }
+            LEASES.put(lockFile, new Lease(channel, lock, exclusive));
+        }
+        inUse.merge(key, 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * Releases one lease of this manager on the key. Must be called with the JVM lock held.
+     */
+    private void releaseLease(String key) {
+        Integer count = inUse.get(key);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            inUse.put(key, count - 1);
+        } else {
+            inUse.remove(key);
+        }
+        Path lockFile = lockFileOf(key);
+        Lease lease = LEASES.get(lockFile);
+        if (lease != null && --lease.count == 0) {
+            LEASES.remove(lockFile);
+            lease.close();
+        }
+    }
+
+    private Path lockFileOf(String key) {
+        return directory.resolve(key + LOCK_SUFFIX).toAbsolutePath().normalize();
+    }
+
+    private IndexLock lockIndex() throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(INDEX_LOCK),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            return new IndexLock(channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the recorded workspaces and removes leftovers of interrupted retrievals.
+     * Must be called with the index lock held.
+     */
+    private Map<String, WorkspaceEntry> readEntries() {
+        Map<String, WorkspaceEntry> entries = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            List<Path> directories = new ArrayList<>();
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (Files.isDirectory(path)) {
+                    directories.add(path);
+                } else if (name.endsWith(METADATA_SUFFIX)) {
+                    try {
+                        WorkspaceEntry entry = objectMapper.readValue(path.toFile(), WorkspaceEntry.class);
+                        entries.put(name.substring(0, name.length() - METADATA_SUFFIX.length()), entry);
+                    } catch (IOException e) {
+                        logger.debug("Ignoring unreadable workspace metadata {}: {}", path, e.getMessage());
+                    }
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            for (Path workspace : directories) {
+                String key = workspace.getFileName().toString();
+                // A retrieval still in progress holds its lease, so only abandoned ones are removed
+                if (!entries.containsKey(key)
+                        && now - Files.getLastModifiedTime(workspace).toMillis() > ORPHAN_AGE_MILLIS
+                        && deleteIfUnused(key, entries)) {
+                    logger.info("Removed incomplete workspace {}", workspace);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot read workspaces in {}: {}", directory, e.getMessage());
+        }
+        return entries;
+    }
+
+    private void saveEntry(String key, WorkspaceEntry entry) {
+        try {
+            Files.createDirectories(directory);
+            objectMapper.writeValue(directory.resolve(key + METADATA_SUFFIX).toFile(), entry);
+        } catch (IOException e) {
+            logger.warn("Cannot record workspace {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static long sizeOf(Path workspace) {
+        AtomicLong size = new AtomicLong();
+        new ParallelTreeWalker(workspace, ExclusionPolicy.none())
+                .walk((file, relativePath, attrs) -> size.addAndGet(attrs.size()));
+        return size.get();
+    }
+
+    /**
+     * The lock on one workspace's lock file, shared by every run of this JVM that uses the workspace.
+     */
+    private static final class Lease {
+        private final FileChannel channel;
+        private FileLock lock;
+        private boolean exclusive;
+        private int count = 1;
+
+        Lease(FileChannel channel, FileLock lock, boolean exclusive) {
+            this.channel = channel;
+            this.lock = lock;
+            this.exclusive = exclusive;
+        }
+
+        void close() {
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Cannot release workspace lock: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Exclusive access to the recorded workspaces across processes.
+     */
+    private static final class IndexLock implements AutoCloseable {
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        IndexLock(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Recorded state of one workspace.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class WorkspaceEntry {
+        public String source;
+        public String revision;
+        public long size;
+        public long lastUsed;
+    }
+}
@@ -1,5 +1,6 @@
 package com.sta.report;
 
+import com.sta.core.analyzer.RuleProfile;
 import com.sta.core.engine.AnalysisResult;
 import com.sta.core.engine.Issue;
 import com.sta.core.engine.Severity;
@@ -60,6 +61,9 @@ public class HtmlReportGenerator implements ReportGenerator {
         String analysisTime = result.getAnalysisTime().atZone(java.time.ZoneId.systemDefault())
                 .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         sb.append("    <span>📅 ").append(analysisTime).append("</span>\n");
+        if (result.isPartial()) {
+            sb.append("    <span>🔀 Changed files ").append(escapeHtml(result.getScope())).append("</span>\n");
+        }
         if (result.getAnalysisDuration() != null) {
             sb.append("    <span>⏱️ ").append(result.getAnalysisDuration().getSeconds()).append("s</span>\n");
         }
@@ -92,6 +96,12 @@ public class HtmlReportGenerator implements ReportGenerator {
         sb.append("  </div>\n");
         sb.append("</section>\n");
 
+        // Rule Profile
+        RuleProfile profile = result.getStatistics().getProfile();
+        if (!profile.isEmpty()) {
+            appendProfile(sb, profile);
+        }
+
         // Issues Table
         sb.append("<section class=\"issues-section\">\n");
         sb.append("  <h2>📋 All Issues (").append(breakdown.totalIssues()).append(")</h2>\n");
@@ -173,6 +183,7 @@ public class HtmlReportGenerator implements ReportGenerator {
         sb.append(".chart-container h3 { color: #F1F5F9; margin-bottom: 1rem; }\n");
         sb.append(".issues-section { padding: 0 2rem 2rem 2rem; }\n");
         sb.append(".issues-section h2 { color: #F1F5F9; margin-bottom: 1rem; }\n");
+        sb.append(".profile-totals { color: #94A3B8; margin-bottom: 1rem; }\n");
         sb.append("#searchBox { width: 100%; padding: 0.75rem 1rem; background: #1E293B; border: 1px solid #334155; border-radius: 8px; color: #F1F5F9; margin-bottom: 1rem; font-size: 1rem; }\n");
         sb.append("table { width: 100%; border-collapse: collapse; background: #1E293B; border-radius: 12px; overflow: hidden; }\n");
         sb.append("th { background: #334155; color: #F1F5F9; padding: 1rem; text-align: left; font-weight: 600; }\n");
@@ -188,6 +199,49 @@ public class HtmlReportGenerator implements ReportGenerator {
         sb.append("</style>\n");
     }
 
+    private void appendProfile(StringBuilder sb, RuleProfile profile) {
+        long ruleNanos = profile.getRuleNanos();
+        sb.append("<section class=\"issues-section\">\n");
+        sb.append("  <h2>⏱️ Most Expensive Rules</h2>\n");
+        sb.append("  <p class=\"profile-totals\">Parsing ").append(formatMillis(profile.getParseNanos()))
+          .append(" · Rules ").append(formatMillis(ruleNanos));
+        for (Map.Entry<String, Long> entry : profile.getWallNanosByRuleSet().entrySet()) {
+            sb.append(" · ").append(escapeHtml(entry.getKey())).append(' ').append(formatMillis(entry.getValue()));
+        }
+        sb.append("<br>Rule-chain rules run as separate tree visits while profiling, so their times are higher"
+          + " than in normal runs.</p>\n");
+        sb.append("  <table>\n");
+        sb.append("    <thead>\n");
+        sb.append("      <tr>\n");
+        sb.append("        <th>Rule</th>\n");
+        sb.append("        <th>Rule Set</th>\n");
+        sb.append("        <th>Executions</th>\n");
+        sb.append("        <th>Wall Time</th>\n");
+        sb.append("        <th>CPU Time</th>\n");
+        sb.append("        <th>Share</th>\n");
+        sb.append("      </tr>\n");
+        sb.append("    </thead>\n");
+        sb.append("    <tbody>\n");
+        for (RuleProfile.RuleTiming timing : profile.getTopRules(20)) {
+            sb.append("      <tr>\n");
+            sb.append("        <td>").append(escapeHtml(timing.getRule())).append("</td>\n");
+            sb.append("        <td>").append(escapeHtml(timing.getRuleSet())).append("</td>\n");
+            sb.append("        <td>").append(String.format("%,d", timing.getInvocations())).append("</td>\n");
+            sb.append("        <td>").append(formatMillis(timing.getWallNanos())).append("</td>\n");
+            sb.append("        <td>").append(formatMillis(timing.getCpuNanos())).append("</td>\n");
+            sb.append("        <td>").append(String.format("%.1f%%",
+                    ruleNanos > 0 ? 100.0 * timing.getWallNanos() / ruleNanos : 0.0)).append("</td>\n");
+            sb.append("      </tr>\n");
+        }
+        sb.append("    </tbody>\n");
+        sb.append("  </table>\n");
+        sb.append("</section>\n");
+    }
+
+    private String formatMillis(long nanos) {
+        return String.format("%,d ms", nanos / 1_000_000);
+    }
+
     private void appendSummaryCard(StringBuilder sb, String title, String value, String subtitle, String colorClass) {
         sb.append("  <div class=\"card\">\n");
         sb.append("    <div class=\"card-title\">").append(title).append("</div>\n");
@@ -217,7 +271,7 @@ public class HtmlReportGenerator implements ReportGenerator {
         sb.append("});\n");
 
         // Top Rules Bar Chart
-        List<Map.Entry<String, Long>> topRules = result.getTopViolatedRules(8);
+        List<Map.Entry<String, Integer>> topRules = result.getSummary().getTopRules(8);
         sb.append("new Chart(document.getElementById('rulesChart'), {\n");
         sb.append("  type: 'bar',\n");
         sb.append("  data: {\n");
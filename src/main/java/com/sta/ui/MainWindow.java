@@ -24,12 +24,16 @@ import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main application window with modern FlatLaf styling.
@@ -51,14 +55,25 @@ public class MainWindow extends JFrame {
     private JTable issuesTable;
     private DefaultTableModel tableModel;
     private TableRowSorter<DefaultTableModel> sorter;
+    private JLabel liveIssuesLabel;
 
     // State
     private AnalysisResult currentResult;
+    private final AtomicInteger liveIssueCount = new AtomicInteger();
+    private final AtomicBoolean liveUpdatePending = new AtomicBoolean();
 
     public MainWindow() {
         this.engine = new AnalysisEngine();
         this.config = AppConfig.getInstance();
 
+        // Show the issue count while the analysis is still running
+        engine.onIssue(issue -> {
+            liveIssueCount.incrementAndGet();
+            if (liveUpdatePending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::updateLiveIssueCount);
+            }
+        });
+
         initializeUI();
         showWelcomePanel();
     }
@@ -66,6 +81,12 @@ public class MainWindow extends JFrame {
     private void initializeUI() {
         setTitle("Static Code Analyzer v2.0.0");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                engine.shutdown();
+            }
+        });
         setSize(config.getWindowWidth(), config.getWindowHeight());
         setLocationRelativeTo(null);
 
@@ -273,6 +294,7 @@ public class MainWindow extends JFrame {
         exportButton.setEnabled(false);
         progressBar.setVisible(true);
         progressBar.setValue(0);
+        liveIssueCount.set(0);
 
         showAnalyzingPanel();
 
@@ -324,12 +346,26 @@ public class MainWindow extends JFrame {
         content.add(Box.createVerticalStrut(10));
         content.add(tipLabel);
 
+        liveIssuesLabel = new JLabel(" ");
+        liveIssuesLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        liveIssuesLabel.setForeground(new Color(148, 163, 184));
+        liveIssuesLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        content.add(Box.createVerticalStrut(10));
+        content.add(liveIssuesLabel);
+
         panel.add(content);
         contentPanel.add(panel, BorderLayout.CENTER);
         contentPanel.revalidate();
         contentPanel.repaint();
     }
 
+    private void updateLiveIssueCount() {
+        liveUpdatePending.set(false);
+        if (liveIssuesLabel != null) {
+            liveIssuesLabel.setText("🔍 " + liveIssueCount.get() + " issues found so far");
+        }
+    }
+
     private void showResults(AnalysisResult result) {
         this.currentResult = result;
         contentPanel.removeAll();
@@ -363,7 +399,7 @@ public class MainWindow extends JFrame {
         analyzeButton.setEnabled(true);
         exportButton.setEnabled(true);
         progressBar.setVisible(false);
-        statusLabel.setText("Analysis complete - " + result.getTotalIssueCount() + " issues found");
+        statusLabel.setText("Analysis complete - " + result.getSummary().getTotal() + " issues found");
 
         contentPanel.revalidate();
         contentPanel.repaint();
@@ -475,8 +511,8 @@ public class MainWindow extends JFrame {
     private JPanel createBarChartPanel(AnalysisResult result) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
 
-        List<Map.Entry<String, Long>> topRules = result.getTopViolatedRules(8);
-        for (Map.Entry<String, Long> entry : topRules) {
+        List<Map.Entry<String, Integer>> topRules = result.getSummary().getTopRules(8);
+        for (Map.Entry<String, Integer> entry : topRules) {
             String rule = entry.getKey();
             if (rule.length() > 20) rule = rule.substring(0, 17) + "...";
             dataset.addValue(entry.getValue(), "Count", rule);
@@ -511,7 +547,7 @@ public class MainWindow extends JFrame {
         JPanel headerPanel = new JPanel(new BorderLayout(10, 0));
         headerPanel.setOpaque(false);
 
-        JLabel titleLabel = new JLabel("🔍 Issues (" + result.getTotalIssueCount() + ")");
+        JLabel titleLabel = new JLabel("🔍 Issues (" + result.getSummary().getTotal() + ")");
         titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
         titleLabel.setForeground(Color.WHITE);
 
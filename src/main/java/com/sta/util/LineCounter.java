@@ -0,0 +1,205 @@
+package com.sta.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Counts lines of C-style source files (Java, Kotlin, Scala, Groovy) directly on bytes.
+ * Files are never decoded, so any charset works and no per-line objects are allocated.
+ * An instance reuses one direct buffer and is not thread-safe.
+ */
+public class LineCounter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Counts the lines of the given file.
+     */
+    public LineStats count(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return count(channel);
+        }
+    }
+
+    /**
+     * Counts the lines read from the given channel until end of stream.
+     */
+    public LineStats count(ReadableByteChannel channel) throws IOException {
+        Scanner scanner = new Scanner();
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                scanner.accept(buffer.get());
+            }
+        }
+        return scanner.finish();
+    }
+
+    /**
+     * Byte-level state machine classifying each line as code, comment or blank.
+     * A line containing any code counts as code, even if it also holds a comment.
+     */
+    private static class Scanner {
+        private int blank;
+        private int comment;
+        private int code;
+
+        private boolean lineHasCode;
+        private boolean lineHasComment;
+        private boolean lineHasBytes;
+
+        private boolean inLineComment;
+        private boolean inBlockComment;
+        private byte stringQuote;
+        private boolean escaped;
+        private boolean pendingSlash;
+        private boolean pendingStar;
+
+        void accept(byte b) {
+            if (b == '\n') {
+                endLine();
+                return;
+            }
+            lineHasBytes = true;
+
+            if (inLineComment) {
+                return;
+            }
+
+            if (inBlockComment) {
+                if (pendingStar && b == '/') {
+                    inBlockComment = false;
+                    pendingStar = false;
+                } else {
+                    pendingStar = b == '*';
+                }
+                if (!isWhitespace(b)) {
+                    lineHasComment = true;
+                }
+                return;
+            }
+
+            if (stringQuote != 0) {
+                lineHasCode = true;
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == stringQuote) {
+                    stringQuote = 0;
+                }
+                return;
+            }
+
+            if (pendingSlash) {
+                pendingSlash = false;
+                if (b == '/') {
+                    inLineComment = true;
+                    lineHasComment = true;
+                    return;
+                }
+                if (b == '*') {
+                    inBlockComment = true;
+                    pendingStar = false;
+                    lineHasComment = true;
+                    return;
+                }
+                lineHasCode = true;
+            }
+
+            if (b == '/') {
+                pendingSlash = true;
+            } else if (b == '"' || b == '\'') {
+                stringQuote = b;
+                lineHasCode = true;
+            } else if (!isWhitespace(b)) {
+                lineHasCode = true;
+            }
+        }
+
+        LineStats finish() {
+            if (lineHasBytes) {
+                endLine();
+            }
+            return new LineStats(blank + comment + code, blank, comment, code);
+        }
+
+        private void endLine() {
+            if (pendingSlash) {
+                lineHasCode = true;
+                pendingSlash = false;
+            }
+
+            if (lineHasCode) {
+                code++;
+            } else if (lineHasComment) {
+                comment++;
+            } else {
+                blank++;
+            }
+
+            // Line comments and unterminated literals end with the line
+            inLineComment = false;
+            stringQuote = 0;
+            escaped = false;
+            pendingStar = false;
+
+            lineHasCode = false;
+            lineHasComment = false;
+            lineHasBytes = false;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+        }
+    }
+
+    /**
+     * Line counts of a file or a group of files.
+     */
+    public static class LineStats {
+        public static final LineStats EMPTY = new LineStats(0, 0, 0, 0);
+
+        private final int totalLines;
+        private final int blankLines;
+        private final int commentLines;
+        private final int codeLines;
+
+        public LineStats(int totalLines, int blankLines, int commentLines, int codeLines) {
+            this.totalLines = totalLines;
+            this.blankLines = blankLines;
+            this.commentLines = commentLines;
+            this.codeLines = codeLines;
+        }
+
+        public int totalLines() { return totalLines; }
+        public int blankLines() { return blankLines; }
+        public int commentLines() { return commentLines; }
+        public int codeLines() { return codeLines; }
+
+        /**
+         * Returns the sum of this and another set of counts.
+         */
+        public LineStats plus(LineStats other) {
+            return new LineStats(totalLines + other.totalLines, blankLines + other.blankLines,
+                    commentLines + other.commentLines, codeLines + other.codeLines);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LineStats{total=%d, code=%d, comment=%d, blank=%d}",
+                    totalLines, codeLines, commentLines, blankLines);
+        }
+    }
+}
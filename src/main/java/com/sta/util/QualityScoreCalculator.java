@@ -2,6 +2,7 @@ package com.sta.util;
 
 import com.sta.core.engine.AnalysisResult;
 import com.sta.core.engine.Issue;
+import com.sta.core.engine.IssueSummary;
 import com.sta.core.engine.Severity;
 
 import java.util.*;
@@ -32,13 +33,13 @@ public class QualityScoreCalculator {
      * Calculates a detailed quality score breakdown.
      */
     public static QualityBreakdown calculateBreakdown(AnalysisResult result) {
-        Map<Severity, Long> counts = result.getIssueCountBySeverity();
+        IssueSummary summary = result.getSummary();
 
-        long critical = counts.getOrDefault(Severity.CRITICAL, 0L);
-        long high = counts.getOrDefault(Severity.HIGH, 0L);
-        long medium = counts.getOrDefault(Severity.MEDIUM, 0L);
-        long low = counts.getOrDefault(Severity.LOW, 0L);
-        long info = counts.getOrDefault(Severity.INFO, 0L);
+        long critical = summary.getCount(Severity.CRITICAL);
+        long high = summary.getCount(Severity.HIGH);
+        long medium = summary.getCount(Severity.MEDIUM);
+        long low = summary.getCount(Severity.LOW);
+        long info = summary.getCount(Severity.INFO);
 
         // Calculate penalty
         double penalty =
@@ -48,8 +49,8 @@ public class QualityScoreCalculator {
             low * Severity.LOW.getWeight() +
             info * Severity.INFO.getWeight();
 
-        // Normalize by lines of code
-        int lines = result.getTotalLinesOfCode();
+        // Normalize by lines of code, excluding blank and comment lines when known
+        int lines = result.getCodeLines() > 0 ? result.getCodeLines() : result.getTotalLinesOfCode();
         double normalizationFactor = lines > 0 ? Math.log10(lines + 1) : 1.0;
 
         double normalizedPenalty = penalty / normalizationFactor;
@@ -58,10 +59,15 @@ public class QualityScoreCalculator {
         String grade = getGrade(score);
         GradeInfo gradeInfo = GRADE_THRESHOLDS.get(grade);
 
+        // Partial analyses only cover changed files and are not a whole-project grade
+        String description = result.isPartial()
+            ? gradeInfo.description + " (changed files only)"
+            : gradeInfo.description;
+
         return new QualityBreakdown(
-            score, grade, gradeInfo.color, gradeInfo.description,
+            score, grade, gradeInfo.color, description,
             penalty, normalizedPenalty,
-            critical, high, medium, low, info, lines
+            critical, high, medium, low, info, lines, result.isPartial()
         );
     }
 
@@ -119,11 +125,12 @@ public class QualityScoreCalculator {
         private final long lowCount;
         private final long infoCount;
         private final int linesOfCode;
+        private final boolean partial;
 
         public QualityBreakdown(double score, String grade, String gradeColor, String gradeDescription,
                                 double rawPenalty, double normalizedPenalty,
                                 long criticalCount, long highCount, long mediumCount,
-                                long lowCount, long infoCount, int linesOfCode) {
+                                long lowCount, long infoCount, int linesOfCode, boolean partial) {
             this.score = score;
             this.grade = grade;
             this.gradeColor = gradeColor;
@@ -136,6 +143,7 @@ public class QualityScoreCalculator {
             this.lowCount = lowCount;
             this.infoCount = infoCount;
             this.linesOfCode = linesOfCode;
+            this.partial = partial;
         }
 
         public double score() { return score; }
@@ -150,6 +158,7 @@ public class QualityScoreCalculator {
         public long lowCount() { return lowCount; }
         public long infoCount() { return infoCount; }
         public int linesOfCode() { return linesOfCode; }
+        public boolean partial() { return partial; }
 
         public long totalIssues() {
             return criticalCount + highCount + mediumCount + lowCount + infoCount;
@@ -0,0 +1,41 @@
+package com.sta.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe pool keeping one shared instance per distinct string.
+ * Meant for low-cardinality values such as rule, rule set and analyzer names that repeat on many issues.
+ * Values are never evicted, so messages, descriptions and other free-form text must not be pooled.
+ */
+public final class StringPool {
+
+    private static final StringPool SHARED = new StringPool();
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the application-wide pool.
+     */
+    public static StringPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the pooled instance equal to the given string, adding it if absent.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = values.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        existing = values.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,116 @@
+package com.sta.core.analyzer;
+
+import com.sta.core.source.SourceInventory.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for release, pruning and persistence of {@link FileQuarantine}. Instances on the same file
+ * stand in for separate runs.
+ */
+class FileQuarantineTest {
+
+    @TempDir
+    Path directory;
+
+    private Path list() {
+        return directory.resolve("quarantine.json");
+    }
+
+    private SourceFile file(String name, String content) throws IOException {
+        Path path = directory.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return new SourceFile(path, name, "java", Files.size(path), 0, null);
+    }
+
+    @Test
+    void testQuarantineSurvivesRuns() throws IOException {
+        SourceFile file = file("Slow.java", "class Slow {}");
+        new FileQuarantine(list()).add("pmd", file, "Timed out", 60);
+
+        FileQuarantine next = new FileQuarantine(list());
+        assertTrue(next.isQuarantined("pmd", file, 60));
+        assertTrue(next.isQuarantined("pmd", file, 30));
+        assertFalse(next.isQuarantined("other", file, 60));
+    }
+
+    @Test
+    void testChangedContentReleasesFile() throws IOException {
+        new FileQuarantine(list()).add("pmd", file("Slow.java", "class Slow {}"), "Timed out", 60);
+
+        SourceFile changed = file("Slow.java", "class Slow { int a; }");
+        assertFalse(new FileQuarantine(list()).isQuarantined("pmd", changed, 60));
+        // The release is written back, so restoring the old content does not quarantine it again
+        assertFalse(new FileQuarantine(list()).isQuarantined("pmd", file("Slow.java", "class Slow {}"), 60));
+    }
+
+    @Test
+    void testRaisedTimeoutReleasesFile() throws IOException {
+        SourceFile file = file("Slow.java", "class Slow {}");
+        new FileQuarantine(list()).add("pmd", file, "Timed out", 60);
+
+        assertFalse(new FileQuarantine(list()).isQuarantined("pmd", file, 120));
+        assertFalse(new FileQuarantine(list()).isQuarantined("pmd", file, 60));
+    }
+
+    @Test
+    void testDisabledTimeoutReleasesFile() throws IOException {
+        SourceFile file = file("Slow.java", "class Slow {}");
+        new FileQuarantine(list()).add("pmd", file, "Timed out", 60);
+        assertFalse(new FileQuarantine(list()).isQuarantined("pmd", file, 0));
+    }
+
+    @Test
+    void testConcurrentRunsKeepEachOthersEntries() throws IOException {
+        SourceFile first = file("First.java", "class First {}");
+        SourceFile second = file("Second.java", "class Second {}");
+        FileQuarantine one = new FileQuarantine(list());
+        FileQuarantine two = new FileQuarantine(list());
+        assertFalse(one.isQuarantined("pmd", first, 60));
+        assertFalse(two.isQuarantined("pmd", second, 60));
+
+        one.add("pmd", first, "Timed out", 60);
+        two.add("pmd", second, "Timed out", 60);
+
+        FileQuarantine next = new FileQuarantine(list());
+        assertTrue(next.isQuarantined("pmd", first, 60));
+        assertTrue(next.isQuarantined("pmd", second, 60));
+    }
+
+    @Test
+    void testOldEntriesArePruned() throws IOException {
+        SourceFile old = file("Old.java", "class Old {}");
+        SourceFile recent = file("Recent.java", "class Recent {}");
+        String entry = "{\"path\":\"%s\",\"contentHash\":\"%s\",\"reason\":\"Timed out\","
+                + "\"timeoutSeconds\":60,\"recordedAt\":%d}";
+        String json = "{\"pmd:" + old.getPath().toAbsolutePath() + "\":"
+                + String.format(entry, old.getPath().toAbsolutePath(), old.getContentHash(), 0L) + "}";
+        Files.write(list(), json.getBytes(StandardCharsets.UTF_8));
+
+        // Entries are pruned when the list is written
+        new FileQuarantine(list()).add("pmd", recent, "Timed out", 60);
+
+        String saved = new String(Files.readAllBytes(list()), StandardCharsets.UTF_8);
+        assertFalse(saved.contains("Old.java"));
+        assertTrue(saved.contains("Recent.java"));
+        assertFalse(new FileQuarantine(list()).isQuarantined("pmd", old, 60));
+    }
+
+    @Test
+    void testUnreadableListIsIgnored() throws IOException {
+        Files.write(list(), "{".getBytes(StandardCharsets.UTF_8));
+        SourceFile file = file("Slow.java", "class Slow {}");
+        FileQuarantine quarantine = new FileQuarantine(list());
+        assertFalse(quarantine.isQuarantined("pmd", file, 60));
+
+        quarantine.add("pmd", file, "Timed out", 60);
+        assertTrue(new FileQuarantine(list()).isQuarantined("pmd", file, 60));
+    }
+}
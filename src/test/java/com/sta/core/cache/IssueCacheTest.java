@@ -0,0 +1,161 @@
+package com.sta.core.cache;
+
+import com.sta.config.RuleConfiguration;
+import com.sta.core.analyzer.Analyzer;
+import com.sta.core.engine.Issue;
+import com.sta.core.engine.Severity;
+import com.sta.core.source.SourceInventory.SourceFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for hits, misses and invalidation of {@link IssueCache}.
+ */
+class IssueCacheTest {
+
+    private static final Analyzer ANALYZER = new TestAnalyzer("1.0");
+
+    @TempDir
+    Path directory;
+
+    private static class TestAnalyzer implements Analyzer {
+        private final String version;
+
+        TestAnalyzer(String version) {
+            this.version = version;
+        }
+
+        @Override public String getId() { return "test"; }
+        @Override public String getDisplayName() { return "Test"; }
+        @Override public boolean isAvailable() { return true; }
+        @Override public String getVersion() { return version; }
+
+        @Override
+        public List<Issue> analyze(Path sourcePath, RuleConfiguration config, Consumer<Double> progressCallback) {
+            return Collections.emptyList();
+        }
+    }
+
+    private SourceFile file(String name, String content) throws IOException {
+        Path path = directory.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return new SourceFile(path, name, "java", Files.size(path), 0, null);
+    }
+
+    private static Issue issue(String file) {
+        return Issue.builder()
+                .severity(Severity.HIGH)
+                .rule("EmptyCatchBlock")
+                .ruleSet("errorprone")
+                .message("Avoid empty catch blocks")
+                .filePath(file)
+                .startLine(3)
+                .endLine(4)
+                .analyzer("Test")
+                .build();
+    }
+
+    @Test
+    void testStoredIssuesAreFound() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        SourceFile file = file("App.java", "class App {}");
+        String fingerprint = new RuleConfiguration().resultsFingerprint();
+        String key = cache.keyFor(file, ANALYZER, fingerprint);
+
+        assertFalse(cache.lookup(key, file, Instant.now()).isPresent());
+        cache.store(key, Collections.singletonList(issue("elsewhere/App.java")));
+
+        Instant run = Instant.ofEpochSecond(1000);
+        Optional<List<Issue>> cached = cache.lookup(cache.keyFor(file, ANALYZER, fingerprint), file, run);
+        assertTrue(cached.isPresent());
+        assertEquals(1, cached.get().size());
+        Issue issue = cached.get().get(0);
+        assertEquals("EmptyCatchBlock", issue.getRule());
+        assertEquals(Severity.HIGH, issue.getSeverity());
+        assertEquals(4, issue.getEndLine());
+        // Entries are content addressed, so issues are rebound to the file and run they are read for
+        assertEquals(file.getPath().toAbsolutePath().toString(), issue.getFilePath());
+        assertEquals(run, issue.getDetectedAt());
+    }
+
+    @Test
+    void testFileWithoutIssuesIsCached() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        SourceFile file = file("App.java", "class App {}");
+        String key = cache.keyFor(file, ANALYZER, new RuleConfiguration().resultsFingerprint());
+        cache.store(key, Collections.emptyList());
+        assertEquals(Optional.of(Collections.emptyList()), cache.lookup(key, file, Instant.now()));
+    }
+
+    @Test
+    void testSameContentSharesEntries() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        String fingerprint = new RuleConfiguration().resultsFingerprint();
+        assertEquals(cache.keyFor(file("A.java", "class X {}"), ANALYZER, fingerprint),
+                cache.keyFor(file("B.java", "class X {}"), ANALYZER, fingerprint));
+    }
+
+    @Test
+    void testChangedContentMisses() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        String fingerprint = new RuleConfiguration().resultsFingerprint();
+        SourceFile before = file("App.java", "class App {}");
+        cache.store(cache.keyFor(before, ANALYZER, fingerprint), Collections.singletonList(issue("App.java")));
+
+        SourceFile after = file("App.java", "class App { int a; }");
+        String key = cache.keyFor(after, ANALYZER, fingerprint);
+        assertFalse(cache.lookup(key, after, Instant.now()).isPresent());
+    }
+
+    @Test
+    void testRuleChangesAndAnalyzerVersionMiss() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        SourceFile file = file("App.java", "class App {}");
+        String key = cache.keyFor(file, ANALYZER, new RuleConfiguration().resultsFingerprint());
+
+        assertNotEquals(key, cache.keyFor(file, ANALYZER,
+                new RuleConfiguration().disableRule("EmptyCatchBlock").resultsFingerprint()));
+        assertNotEquals(key, cache.keyFor(file, ANALYZER,
+                new RuleConfiguration().overrideSeverity("EmptyCatchBlock", "LOW").resultsFingerprint()));
+        assertNotEquals(key, cache.keyFor(file, ANALYZER,
+                new RuleConfiguration().setRuleProperty("CyclomaticComplexity", "methodReportLevel", 5)
+                        .resultsFingerprint()));
+        assertNotEquals(key, cache.keyFor(file, new TestAnalyzer("2.0"),
+                new RuleConfiguration().resultsFingerprint()));
+    }
+
+    @Test
+    void testFileSelectionKeepsEntries() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        SourceFile file = file("App.java", "class App {}");
+        String key = cache.keyFor(file, ANALYZER, new RuleConfiguration().resultsFingerprint());
+
+        RuleConfiguration narrowed = new RuleConfiguration().include("src/**").exclude("build/");
+        narrowed.setExcludeGeneratedCode(false);
+        assertEquals(key, cache.keyFor(file, ANALYZER, narrowed.resultsFingerprint()));
+    }
+
+    @Test
+    void testUnreadableEntryMisses() throws IOException {
+        IssueCache cache = new IssueCache(directory.resolve("cache"));
+        SourceFile file = file("App.java", "class App {}");
+        String key = cache.keyFor(file, ANALYZER, new RuleConfiguration().resultsFingerprint());
+        cache.store(key, Collections.singletonList(issue("App.java")));
+
+        Path entry = directory.resolve("cache").resolve(key.substring(0, 2)).resolve(key + ".json");
+        Files.write(entry, "[{".getBytes(StandardCharsets.UTF_8));
+        assertFalse(cache.lookup(key, file, Instant.now()).isPresent());
+    }
+}
@@ -0,0 +1,67 @@
+package com.sta.core.diff;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for range merging and overlap queries of {@link LineRangeIndex}.
+ */
+class LineRangeIndexTest {
+
+    @Test
+    void testOverlappingRangesAreMerged() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(10, 20).add(15, 30).build();
+        assertEquals(1, index.size());
+        assertTrue(index.contains(10));
+        assertTrue(index.contains(30));
+        assertFalse(index.contains(31));
+    }
+
+    @Test
+    void testAdjacentRangesAreMerged() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(1, 5).add(6, 8).build();
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testContainedRangeDoesNotShrinkMerge() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(1, 100).add(10, 20).build();
+        assertEquals(1, index.size());
+        assertTrue(index.contains(50));
+    }
+
+    @Test
+    void testUnsortedRangesAreSorted() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(40, 45).add(1, 2).add(20, 22).build();
+        assertEquals(3, index.size());
+        assertTrue(index.contains(1));
+        assertTrue(index.contains(21));
+        assertTrue(index.contains(45));
+        assertFalse(index.contains(10));
+    }
+
+    @Test
+    void testOverlapsSpanningGap() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(10, 12).add(20, 22).build();
+        assertTrue(index.overlaps(5, 10));
+        assertTrue(index.overlaps(13, 20));
+        assertFalse(index.overlaps(13, 19));
+        assertFalse(index.overlaps(1, 9));
+        assertFalse(index.overlaps(23, 40));
+    }
+
+    @Test
+    void testReversedQueryIsSingleLine() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(10, 12).build();
+        assertTrue(index.overlaps(11, 0));
+        assertFalse(index.overlaps(13, 0));
+    }
+
+    @Test
+    void testEmptyRangesAreIgnored() {
+        LineRangeIndex index = new LineRangeIndex.Builder().add(5, 4).build();
+        assertTrue(index.isEmpty());
+        assertFalse(index.contains(5));
+    }
+}
@@ -0,0 +1,142 @@
+package com.sta.core.diff;
+
+import com.sta.core.engine.Issue;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for hunk and path parsing of {@link UnifiedDiffParser}.
+ */
+class UnifiedDiffParserTest {
+
+    private static final Path ROOT = Paths.get("repo").toAbsolutePath();
+
+    private static ChangedLines parse(String... lines) throws IOException {
+        return UnifiedDiffParser.parse(new BufferedReader(new StringReader(String.join("\n", lines))), ROOT);
+    }
+
+    private static boolean changed(ChangedLines changedLines, String file, int line) {
+        Issue issue = Issue.builder()
+                .rule("TestRule")
+                .message("Test issue")
+                .filePath(ROOT.resolve(file).toString())
+                .startLine(line)
+                .endLine(line)
+                .build();
+        return changedLines.contains(issue);
+    }
+
+    @Test
+    void testAddedLinesOfHunk() throws IOException {
+        ChangedLines changedLines = parse(
+                "diff --git a/src/App.java b/src/App.java",
+                "--- a/src/App.java",
+                "+++ b/src/App.java",
+                "@@ -10,3 +10,4 @@ class App {",
+                " context",
+                "+added",
+                "-removed",
+                "+replaced",
+                " context");
+        assertEquals(1, changedLines.getFileCount());
+        assertFalse(changed(changedLines, "src/App.java", 10));
+        assertTrue(changed(changedLines, "src/App.java", 11));
+        assertTrue(changed(changedLines, "src/App.java", 12));
+        assertFalse(changed(changedLines, "src/App.java", 13));
+    }
+
+    @Test
+    void testSeveralHunksAndFiles() throws IOException {
+        ChangedLines changedLines = parse(
+                "--- a/A.java",
+                "+++ b/A.java",
+                "@@ -1 +1 @@",
+                "-old",
+                "+new",
+                "@@ -20,2 +20,3 @@",
+                " context",
+                "+added",
+                " context",
+                "--- a/B.java",
+                "+++ b/B.java",
+                "@@ -5,0 +6,2 @@",
+                "+one",
+                "+two");
+        assertEquals(2, changedLines.getFileCount());
+        assertTrue(changed(changedLines, "A.java", 1));
+        assertTrue(changed(changedLines, "A.java", 21));
+        assertFalse(changed(changedLines, "A.java", 20));
+        assertTrue(changed(changedLines, "B.java", 6));
+        assertTrue(changed(changedLines, "B.java", 7));
+        assertFalse(changed(changedLines, "B.java", 5));
+    }
+
+    @Test
+    void testPureDeletionChangesNothing() throws IOException {
+        ChangedLines changedLines = parse(
+                "--- a/A.java",
+                "+++ b/A.java",
+                "@@ -3,2 +2,0 @@",
+                "-gone",
+                "-gone");
+        assertEquals(0, changedLines.getFileCount());
+    }
+
+    @Test
+    void testNoNewlineMarkerIsSkipped() throws IOException {
+        ChangedLines changedLines = parse(
+                "--- a/A.java",
+                "+++ b/A.java",
+                "@@ -1 +1,2 @@",
+                " context",
+                "\\ No newline at end of file",
+                "+added");
+        assertTrue(changed(changedLines, "A.java", 2));
+        assertFalse(changed(changedLines, "A.java", 1));
+    }
+
+    @Test
+    void testNewFileUsesDiffGitPrefix() throws IOException {
+        ChangedLines changedLines = parse(
+                "diff --git a/New.java b/New.java",
+                "new file mode 100644",
+                "--- /dev/null",
+                "+++ b/New.java",
+                "@@ -0,0 +1,2 @@",
+                "+one",
+                "+two");
+        assertTrue(changed(changedLines, "New.java", 1));
+        assertTrue(changed(changedLines, "New.java", 2));
+    }
+
+    @Test
+    void testNoPrefixKeepsDirectoryNamedB() throws IOException {
+        ChangedLines changedLines = parse(
+                "diff --git b/App.java b/App.java",
+                "--- b/App.java",
+                "+++ b/App.java",
+                "@@ -1 +1 @@",
+                "-old",
+                "+new");
+        assertTrue(changed(changedLines, "b/App.java", 1));
+        assertFalse(changed(changedLines, "App.java", 1));
+    }
+
+    @Test
+    void testTimestampAfterPathIsIgnored() throws IOException {
+        ChangedLines changedLines = parse(
+                "--- A.java\t2026-01-01 10:00:00",
+                "+++ A.java\t2026-01-02 10:00:00",
+                "@@ -1 +1 @@",
+                "-old",
+                "+new");
+        assertTrue(changed(changedLines, "A.java", 1));
+    }
+}
@@ -0,0 +1,108 @@
+package com.sta.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that {@link IssueCollector} merges per-thread buffers into the same order regardless of
+ * how threads interleave.
+ */
+class IssueCollectorTest {
+
+    private static List<Issue> sampleIssues() {
+        List<Issue> issues = new ArrayList<>();
+        String[] files = {"/src/B.java", "/src/A.java", null, "/src/C.java"};
+        for (int i = 0; i < 400; i++) {
+            issues.add(Issue.builder()
+                    .severity(Severity.values()[i % Severity.values().length])
+                    .rule("Rule" + (i % 3))
+                    .message("Message " + (i % 5))
+                    .filePath(files[i % files.length])
+                    .startLine(i % 17)
+                    .startColumn(i % 2)
+                    .analyzer(i % 7 == 0 ? null : "PMD")
+                    .build());
+        }
+        return issues;
+    }
+
+    private static List<Issue> collect(List<Issue> issues, int threads, long seed) throws InterruptedException {
+        List<Issue> shuffled = new ArrayList<>(issues);
+        Collections.shuffle(shuffled, new Random(seed));
+
+        IssueCollector collector = new IssueCollector();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = offset; i < shuffled.size(); i += threads) {
+                    collector.accept(shuffled.get(i));
+                    if (i % 13 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new ArrayList<>(collector.toList());
+    }
+
+    private static List<String> describe(List<Issue> issues) {
+        List<String> result = new ArrayList<>();
+        for (Issue issue : issues) {
+            result.add(issue.getFilePath() + ":" + issue.getStartLine() + ":" + issue.getStartColumn() + ":"
+                    + issue.getRule() + ":" + issue.getAnalyzer() + ":" + issue.getSeverity() + ":" + issue.getMessage());
+        }
+        return result;
+    }
+
+    @Test
+    void testMergedOrderFollowsComparator() throws InterruptedException {
+        List<Issue> expected = new ArrayList<>(sampleIssues());
+        expected.sort(IssueCollector.ORDER);
+        assertEquals(describe(expected), describe(collect(sampleIssues(), 4, 1)));
+    }
+
+    @Test
+    void testOrderDoesNotDependOnThreadsOrInterleaving() throws InterruptedException {
+        List<String> reference = describe(collect(sampleIssues(), 1, 0));
+        for (int threads = 2; threads <= 8; threads *= 2) {
+            for (long seed = 1; seed <= 5; seed++) {
+                assertEquals(reference, describe(collect(sampleIssues(), threads, seed)),
+                        threads + " threads, seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void testCollectorIsEmptiedByMerge() {
+        IssueCollector collector = new IssueCollector();
+        collector.accept(sampleIssues().get(0));
+        assertEquals(1, collector.toStore().size());
+        assertEquals(0, collector.toStore().size());
+    }
+
+    @Test
+    void testEmptyCollector() {
+        assertTrue(new IssueCollector().toList().isEmpty());
+    }
+}
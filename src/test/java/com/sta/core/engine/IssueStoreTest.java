@@ -0,0 +1,146 @@
+package com.sta.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for round-trips and severity counts of {@link IssueStore}.
+ */
+class IssueStoreTest {
+
+    private static Issue issue(String file, int line, Severity severity) {
+        return Issue.builder()
+                .severity(severity)
+                .rule("Rule" + line)
+                .ruleSet("Set")
+                .message("Message " + line)
+                .filePath(file)
+                .startLine(line)
+                .endLine(line + 1)
+                .startColumn(2)
+                .endColumn(7)
+                .analyzer("PMD")
+                .detectedAt(Instant.ofEpochSecond(1000))
+                .build();
+    }
+
+    @Test
+    void testRoundTripKeepsEveryField() {
+        Issue original = Issue.builder()
+                .severity(Severity.HIGH)
+                .rule("EmptyCatchBlock")
+                .ruleSet("errorprone")
+                .message("Avoid empty catch blocks")
+                .description("Empty catch blocks hide errors")
+                .filePath("/src/App.java")
+                .startLine(10)
+                .endLine(12)
+                .startColumn(5)
+                .endColumn(9)
+                .codeSnippet("catch (Exception e) {}")
+                .suggestion("Log the exception")
+                .analyzer("PMD")
+                .documentationUrl("https://pmd.github.io")
+                .detectedAt(Instant.ofEpochSecond(42))
+                .build();
+
+        Issue copy = IssueStore.of(Arrays.asList(original)).get(0);
+        assertEquals(original, copy);
+        assertEquals(original.getSeverity(), copy.getSeverity());
+        assertEquals(original.getRuleSet(), copy.getRuleSet());
+        assertEquals(original.getMessage(), copy.getMessage());
+        assertEquals(original.getDescription(), copy.getDescription());
+        assertEquals(original.getEndLine(), copy.getEndLine());
+        assertEquals(original.getEndColumn(), copy.getEndColumn());
+        assertEquals(original.getCodeSnippet(), copy.getCodeSnippet());
+        assertEquals(original.getSuggestion(), copy.getSuggestion());
+        assertEquals(original.getDocumentationUrl(), copy.getDocumentationUrl());
+        assertEquals(original.getDetectedAt(), copy.getDetectedAt());
+        assertEquals(original.getId(), copy.getId());
+    }
+
+    @Test
+    void testNullFieldsStayNull() {
+        Issue original = Issue.builder().rule("Rule").message("Message").build();
+        Issue copy = IssueStore.of(Arrays.asList(original)).get(0);
+        assertNull(copy.getFilePath());
+        assertNull(copy.getRuleSet());
+        assertNull(copy.getDescription());
+        assertEquals(Severity.INFO, copy.getSeverity());
+    }
+
+    @Test
+    void testExplicitIdIsKept() {
+        Issue original = Issue.builder().id("fixed-id").rule("Rule").message("Message").build();
+        assertEquals("fixed-id", IssueStore.of(Arrays.asList(original)).get(0).getId());
+    }
+
+    @Test
+    void testRowsKeepInsertionOrder() {
+        List<Issue> issues = Arrays.asList(
+                issue("B.java", 3, Severity.LOW),
+                issue("A.java", 1, Severity.HIGH),
+                issue("C.java", 2, Severity.LOW));
+        IssueStore store = IssueStore.of(issues);
+        assertEquals(3, store.size());
+        assertEquals(issues, store.asList());
+        assertEquals("A.java", store.getFilePath(1));
+        assertEquals(Severity.HIGH, store.getSeverity(1));
+    }
+
+    @Test
+    void testCountsAndViewsBySeverity() {
+        IssueStore store = IssueStore.of(Arrays.asList(
+                issue("A.java", 1, Severity.LOW),
+                issue("A.java", 2, Severity.CRITICAL),
+                issue("B.java", 1, Severity.LOW),
+                issue("B.java", 2, Severity.LOW)));
+        assertEquals(3, store.count(Severity.LOW));
+        assertEquals(1, store.count(Severity.CRITICAL));
+        assertEquals(0, store.count(Severity.MEDIUM));
+
+        List<Issue> low = store.withSeverity(Severity.LOW);
+        assertEquals(3, low.size());
+        assertEquals("B.java", low.get(2).getFilePath());
+        assertTrue(store.withSeverity(Severity.MEDIUM).isEmpty());
+    }
+
+    @Test
+    void testSelectAndView() {
+        IssueStore store = IssueStore.of(Arrays.asList(
+                issue("A.java", 1, Severity.LOW),
+                issue("B.java", 2, Severity.LOW),
+                issue("A.java", 3, Severity.LOW)));
+        BitSet rows = store.select(issue -> "A.java".equals(issue.getFilePath()));
+        assertEquals(2, rows.cardinality());
+        List<Issue> view = store.view(rows);
+        assertEquals(3, view.get(1).getStartLine());
+    }
+
+    @Test
+    void testManyRowsSurviveGrowth() {
+        IssueStore.Builder builder = IssueStore.builder();
+        for (int line = 1; line <= 1000; line++) {
+            builder.add(issue("File" + (line % 7) + ".java", line, Severity.values()[line % 5]));
+        }
+        IssueStore store = builder.build();
+        assertEquals(1000, store.size());
+        assertEquals(1000, store.get(999).getStartLine());
+        assertEquals(200, store.count(Severity.values()[0]));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(1000));
+    }
+
+    @Test
+    void testBuilderBuildsOnce() {
+        IssueStore.Builder builder = IssueStore.builder().add(issue("A.java", 1, Severity.LOW));
+        builder.build();
+        assertThrows(IllegalStateException.class, builder::build);
+        assertThrows(IllegalStateException.class, () -> builder.add(issue("A.java", 2, Severity.LOW)));
+    }
+}
@@ -0,0 +1,213 @@
+package com.sta.core.source;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the .gitignore-style rules of {@link ExclusionPolicy}.
+ */
+class ExclusionPolicyTest {
+
+    @TempDir
+    Path directory;
+
+    private static ExclusionPolicy ignoring(String... lines) {
+        return ExclusionPolicy.compile(Arrays.asList(lines), Collections.emptyList(), Collections.emptyList());
+    }
+
+    private static ExclusionPolicy gitIgnoring(List<String> staIgnoreLines, Set<String> trackedFiles,
+                                               String... gitIgnoreLines) {
+        return ExclusionPolicy.compile(Arrays.asList(gitIgnoreLines), staIgnoreLines,
+                Collections.emptyList(), Collections.emptyList(), trackedFiles);
+    }
+
+    private void write(String relativePath, String content) throws IOException {
+        Path file = directory.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBuiltInDirectoriesAreExcluded() {
+        ExclusionPolicy policy = ExclusionPolicy.defaults();
+        assertTrue(policy.isExcludedDirectory("target"));
+        assertTrue(policy.isExcludedDirectory("module/node_modules"));
+        assertFalse(policy.isExcludedDirectory("src"));
+    }
+
+    @Test
+    void testNegationOverridesEarlierRule() {
+        ExclusionPolicy policy = ignoring("*.log", "!keep.log");
+        assertTrue(policy.isExcludedFile("app.log"));
+        assertFalse(policy.isExcludedFile("keep.log"));
+        assertFalse(policy.isExcludedFile("logs/keep.log"));
+    }
+
+    @Test
+    void testNegationReincludesBuiltInDirectory() {
+        ExclusionPolicy policy = ignoring("!build/");
+        assertFalse(policy.isExcludedDirectory("build"));
+        assertTrue(policy.isExcludedDirectory("target"));
+    }
+
+    @Test
+    void testDirectoryOnlyRuleDoesNotMatchFiles() {
+        ExclusionPolicy policy = ignoring("out/");
+        assertTrue(policy.isExcludedDirectory("out"));
+        assertFalse(policy.isExcludedFile("out"));
+    }
+
+    @Test
+    void testPatternWithoutSlashMatchesAtAnyDepth() {
+        ExclusionPolicy policy = ignoring("generated");
+        assertTrue(policy.isExcludedDirectory("generated"));
+        assertTrue(policy.isExcludedDirectory("a/b/generated"));
+    }
+
+    @Test
+    void testPatternWithSlashIsAnchoredToRoot() {
+        ExclusionPolicy policy = ignoring("/docs", "lib/tmp");
+        assertTrue(policy.isExcludedDirectory("docs"));
+        assertFalse(policy.isExcludedDirectory("module/docs"));
+        assertTrue(policy.isExcludedDirectory("lib/tmp"));
+        assertFalse(policy.isExcludedDirectory("module/lib/tmp"));
+    }
+
+    @Test
+    void testSingleStarStaysWithinOneDirectory() {
+        ExclusionPolicy policy = ignoring("src/*.txt");
+        assertTrue(policy.isExcludedFile("src/notes.txt"));
+        assertFalse(policy.isExcludedFile("src/sub/notes.txt"));
+    }
+
+    @Test
+    void testDoubleStarSpansDirectories() {
+        ExclusionPolicy policy = ignoring("**/fixtures/**", "docs/**/*.md");
+        assertTrue(policy.isExcludedFile("fixtures/a.java"));
+        assertTrue(policy.isExcludedFile("src/test/fixtures/deep/a.java"));
+        assertTrue(policy.isExcludedFile("docs/README.md"));
+        assertTrue(policy.isExcludedFile("docs/a/b/guide.md"));
+        assertFalse(policy.isExcludedFile("src/README.md"));
+    }
+
+    @Test
+    void testIncludesRestrictFiles() {
+        List<String> includes = Collections.singletonList("**/*.java");
+        ExclusionPolicy policy = ExclusionPolicy.compile(Collections.emptyList(), includes, Collections.emptyList());
+        assertFalse(policy.isExcludedFile("src/main/java/App.java"));
+        assertTrue(policy.isExcludedFile("README.md"));
+    }
+
+    @Test
+    void testCharacterSets() {
+        ExclusionPolicy policy = ignoring("file[0-9].txt", "x[!a].txt");
+        assertTrue(policy.isExcludedFile("file3.txt"));
+        assertFalse(policy.isExcludedFile("fileA.txt"));
+        assertTrue(policy.isExcludedFile("xb.txt"));
+        assertFalse(policy.isExcludedFile("xa.txt"));
+    }
+
+    @Test
+    void testSetMembersAreEscaped() {
+        ExclusionPolicy policy = ignoring("[]abc].txt", "y[\\].txt", "z[&&].txt");
+        assertTrue(policy.isExcludedFile("].txt"));
+        assertTrue(policy.isExcludedFile("a.txt"));
+        // Backslashes in paths are separators, so y[\] can only be checked to compile
+        assertFalse(policy.isExcludedFile("y.txt"));
+        assertTrue(policy.isExcludedFile("z&.txt"));
+        assertFalse(policy.isExcludedFile("d.txt"));
+    }
+
+    @Test
+    void testInvalidLineIsSkipped() {
+        ExclusionPolicy policy = assertDoesNotThrow(() -> ignoring("[z-a].txt", "*.tmp"));
+        assertTrue(policy.isExcludedFile("a.tmp"));
+        assertFalse(policy.isExcludedFile("b.txt"));
+    }
+
+    @Test
+    void testWindowsSeparatorsAreNormalized() {
+        ExclusionPolicy policy = ignoring("lib/tmp");
+        assertTrue(policy.isExcludedDirectory("lib\\tmp"));
+    }
+
+    @Test
+    void testGitIgnoreAppliesToAllFilesOutsideRepository() {
+        ExclusionPolicy policy = gitIgnoring(Collections.emptyList(), null, "*.gen.java", "gen/");
+        assertTrue(policy.isExcludedFile("src/A.gen.java"));
+        assertTrue(policy.isExcludedDirectory("gen"));
+    }
+
+    @Test
+    void testGitIgnoreSkipsTrackedFiles() {
+        Set<String> tracked = new HashSet<>(Arrays.asList("src/A.gen.java", "gen/B.java", "gen/deep/C.java"));
+        ExclusionPolicy policy = gitIgnoring(Collections.emptyList(), tracked, "*.gen.java", "gen/");
+        assertFalse(policy.isExcludedFile("src/A.gen.java"));
+        assertTrue(policy.isExcludedFile("src/Other.gen.java"));
+
+        // Directories with tracked files are walked, but their untracked files stay ignored
+        assertFalse(policy.isExcludedDirectory("gen"));
+        assertFalse(policy.isExcludedFile("gen/B.java"));
+        assertFalse(policy.isExcludedFile("gen/deep/C.java"));
+        assertTrue(policy.isExcludedFile("gen/Untracked.java"));
+        assertTrue(policy.isExcludedDirectory("gen/untracked"));
+    }
+
+    @Test
+    void testOtherRulesStillApplyToTrackedFiles() {
+        Set<String> tracked = new HashSet<>(Arrays.asList("build/Tool.java", "src/Legacy.java"));
+        ExclusionPolicy policy = gitIgnoring(Collections.singletonList("Legacy.java"), tracked, "!build/");
+        assertTrue(policy.isExcludedDirectory("build"));
+        assertTrue(policy.isExcludedFile("src/Legacy.java"));
+    }
+
+    @Test
+    void testLoadReadsTheGitIndex() throws IOException, GitAPIException {
+        write(".staignore", "legacy/\n");
+        write("module/src/A.java", "class A {}");
+        write("module/src/B.gen.java", "class B {}");
+        write("module/generated/C.java", "class C {}");
+        write("module/legacy/D.java", "class D {}");
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+        }
+        // Ignoring files after they were added keeps them tracked
+        write(".gitignore", "*.gen.java\ngenerated/\n");
+        write("module/src/E.gen.java", "class E {}");
+        write("module/generated/F.java", "class F {}");
+
+        ExclusionPolicy policy = ExclusionPolicy.load(directory, Collections.emptyList(), Collections.emptyList());
+        assertFalse(policy.isExcludedFile("module/src/A.java"));
+        assertFalse(policy.isExcludedFile("module/src/B.gen.java"));
+        assertTrue(policy.isExcludedFile("module/src/E.gen.java"));
+        assertFalse(policy.isExcludedDirectory("module/generated"));
+        assertFalse(policy.isExcludedFile("module/generated/C.java"));
+        assertTrue(policy.isExcludedFile("module/generated/F.java"));
+        assertTrue(policy.isExcludedDirectory("module/legacy"));
+
+        // A subdirectory sees the index relative to itself
+        Path module = directory.resolve("module");
+        Set<String> expected = new HashSet<>(Arrays.asList(
+                "src/A.java", "src/B.gen.java", "generated/C.java", "legacy/D.java"));
+        assertEquals(expected, ExclusionPolicy.readTrackedFiles(module));
+    }
+
+    @Test
+    void testNoIndexOutsideRepository() {
+        assertNull(ExclusionPolicy.readTrackedFiles(directory));
+    }
+}
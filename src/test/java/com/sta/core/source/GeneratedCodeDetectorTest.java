@@ -0,0 +1,126 @@
+package com.sta.core.source;
+
+import com.sta.util.LineCounter;
+import com.sta.util.LineCounter.LineStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the path and header markers of {@link GeneratedCodeDetector}.
+ */
+class GeneratedCodeDetectorTest {
+
+    @TempDir
+    Path directory;
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testVendoredDirectories() {
+        assertTrue(GeneratedCodeDetector.isVendored("vendor/lib/Util.java"));
+        assertTrue(GeneratedCodeDetector.isVendored("module/third_party/Util.java"));
+        assertTrue(GeneratedCodeDetector.isVendored("target/generated-sources/antlr4/Parser.java"));
+        assertTrue(GeneratedCodeDetector.isVendored("module\\vendor\\Util.java"));
+        assertFalse(GeneratedCodeDetector.isVendored("lib/Util.java"));
+        assertFalse(GeneratedCodeDetector.isVendored("vendors/Util.java"));
+    }
+
+    @Test
+    void testPackageNamesBelowSourceRootsAreNotVendored() {
+        assertFalse(GeneratedCodeDetector.isVendored("src/main/java/com/acme/vendor/Vendor.java"));
+        assertFalse(GeneratedCodeDetector.isVendored("module/src/main/java/thirdparty/Client.java"));
+        assertTrue(GeneratedCodeDetector.isVendored("vendor/src/main/java/Util.java"));
+    }
+
+    @Test
+    void testGeneratorMarkers() {
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader("package a;\n@Generated(\"tool\")\nclass A {}"));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader(
+                "package a;\n@javax.annotation.processing.Generated(\"tool\")\nclass A {}"));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader("/** @generated */\nclass A {}"));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader(
+                "// Generated by the protocol buffer compiler.  DO NOT EDIT!\n// source: a.proto\n"));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader("// Generated from Expr.g4 by ANTLR 4.13.1\n"));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader(
+                "// Generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation\n"));
+        assertFalse(GeneratedCodeDetector.hasGeneratedHeader("package a;\n@GeneratedValue\nprivate long id;"));
+        assertFalse(GeneratedCodeDetector.hasGeneratedHeader("package a;\nclass A {}"));
+    }
+
+    @Test
+    void testProseMarkersOnlyInLeadingComments() {
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader("// Code generated by tool. DO NOT EDIT.\npackage a;"));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader(
+                "/*\n * License\n */\n\n/* This file is auto-generated */\npackage a;"));
+        assertFalse(GeneratedCodeDetector.hasGeneratedHeader("package a;\n// DO NOT EDIT the order below\nclass A {}"));
+        assertFalse(GeneratedCodeDetector.hasGeneratedHeader("package a;\n/* This class was generated once */"));
+    }
+
+    @Test
+    void testDoNotEditIsCaseSensitive() {
+        assertFalse(GeneratedCodeDetector.hasGeneratedHeader("// Please do not edit without review\npackage a;"));
+    }
+
+    @Test
+    void testLeadingComments() {
+        assertEquals("", GeneratedCodeDetector.leadingComments("package a;"));
+        assertEquals("// one\n/* two */ ", GeneratedCodeDetector.leadingComments("// one\n/* two */ package a;"));
+        assertEquals("/* open", GeneratedCodeDetector.leadingComments("/* open"));
+        // A byte order mark as decoded from ISO-8859-1
+        assertEquals("\u00EF\u00BB\u00BF// bom\n",
+                GeneratedCodeDetector.leadingComments("\u00EF\u00BB\u00BF// bom\npackage a;"));
+    }
+
+    @Test
+    void testMarkerBeyondHeaderIsIgnored() {
+        String header = "package a;\n// " + repeat('x', GeneratedCodeDetector.HEADER_BYTES) + "\n@Generated\n";
+        byte[] bytes = header.getBytes(StandardCharsets.UTF_8);
+        assertFalse(GeneratedCodeDetector.hasGeneratedHeader(bytes, GeneratedCodeDetector.HEADER_BYTES));
+        assertTrue(GeneratedCodeDetector.hasGeneratedHeader(bytes, bytes.length));
+    }
+
+    @Test
+    void testHeaderChannelCapturesWhileCounting() throws IOException {
+        String source = "// Generated by the protocol buffer compiler.\npackage a;\n"
+                + repeat('\n', 3 * GeneratedCodeDetector.HEADER_BYTES);
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        try (GeneratedCodeDetector.HeaderChannel channel = new GeneratedCodeDetector.HeaderChannel(
+                Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            LineStats stats = new LineCounter().count(channel);
+            assertEquals(2 + 3 * GeneratedCodeDetector.HEADER_BYTES, stats.totalLines());
+            assertTrue(channel.hasGeneratedHeader());
+        }
+    }
+
+    @Test
+    void testGeneratedFileOnDisk() throws IOException {
+        Path path = directory.resolve("Parser.java");
+        Files.write(path, "// Generated from Expr.g4 by ANTLR 4.13.1\nclass Parser {}".getBytes(StandardCharsets.UTF_8));
+        SourceInventory.SourceFile generated = new SourceInventory.SourceFile(path, "Parser.java", "java",
+                Files.size(path), 0, null);
+        assertTrue(GeneratedCodeDetector.isGenerated(generated));
+
+        SourceInventory.SourceFile vendored = new SourceInventory.SourceFile(directory.resolve("missing.txt"),
+                "vendor/missing.txt", "txt", 0, 0, null);
+        assertTrue(GeneratedCodeDetector.isGenerated(vendored));
+
+        SourceInventory.SourceFile unreadable = new SourceInventory.SourceFile(directory.resolve("Missing.java"),
+                "Missing.java", "java", 0, 0, null);
+        assertFalse(GeneratedCodeDetector.isGenerated(unreadable));
+    }
+}
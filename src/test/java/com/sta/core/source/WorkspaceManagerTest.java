@@ -0,0 +1,98 @@
+package com.sta.core.source;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for leases and eviction of {@link WorkspaceManager}. Managers on the same directory stand in
+ * for separate runs.
+ */
+class WorkspaceManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private static Path retrieve(WorkspaceManager manager, String key, String revision) throws IOException {
+        Path workspace = manager.allocate(key);
+        Files.write(workspace.resolve("App.java"), new byte[1024]);
+        manager.commit(workspace.getFileName().toString(), "repo", revision);
+        return workspace;
+    }
+
+    @Test
+    void testReuseOfSameRevision() throws IOException {
+        WorkspaceManager first = new WorkspaceManager(directory, Long.MAX_VALUE);
+        Path workspace = retrieve(first, "repo-1", "abc");
+        first.release(workspace);
+
+        WorkspaceManager second = new WorkspaceManager(directory, Long.MAX_VALUE);
+        assertEquals(Optional.of(workspace), second.reuse("repo-1", "abc"));
+        assertFalse(second.reuse("repo-1", "def").isPresent());
+        second.close();
+    }
+
+    @Test
+    void testWorkspaceInUseIsNotReplaced() throws IOException {
+        WorkspaceManager reader = new WorkspaceManager(directory, Long.MAX_VALUE);
+        Path workspace = retrieve(reader, "repo-1", "abc");
+
+        WorkspaceManager writer = new WorkspaceManager(directory, Long.MAX_VALUE);
+        Path other = writer.allocate("repo-1");
+        assertNotEquals(workspace, other);
+        assertTrue(Files.exists(workspace.resolve("App.java")));
+        writer.discard(other.getFileName().toString());
+        reader.close();
+    }
+
+    @Test
+    void testWorkspaceInUseIsNotEvicted() throws IOException {
+        WorkspaceManager reader = new WorkspaceManager(directory, Long.MAX_VALUE);
+        Path used = retrieve(reader, "repo-1", "abc");
+
+        WorkspaceManager other = new WorkspaceManager(directory, 0);
+        Path unused = retrieve(other, "repo-2", "abc");
+        other.release(unused);
+        other.close();
+        assertTrue(Files.isDirectory(used));
+        assertFalse(Files.exists(unused));
+
+        reader.release(used);
+        other.close();
+        assertFalse(Files.exists(used));
+    }
+
+    @Test
+    void testSharedLeasesAreCounted() throws IOException {
+        WorkspaceManager first = new WorkspaceManager(directory, Long.MAX_VALUE);
+        Path workspace = retrieve(first, "repo-1", "abc");
+        WorkspaceManager second = new WorkspaceManager(directory, Long.MAX_VALUE);
+        assertTrue(second.reuse("repo-1", "abc").isPresent());
+        first.close();
+
+        WorkspaceManager evicting = new WorkspaceManager(directory, 0);
+        evicting.close();
+        assertTrue(Files.isDirectory(workspace));
+
+        second.release(workspace);
+        evicting.close();
+        assertFalse(Files.exists(workspace));
+    }
+
+    @Test
+    void testReleaseOfForeignPathIsIgnored() throws IOException {
+        WorkspaceManager manager = new WorkspaceManager(directory, 0);
+        Path workspace = retrieve(manager, "repo-1", "abc");
+        manager.release(directory.resolveSibling("elsewhere"));
+        new WorkspaceManager(directory, 0).close();
+        assertTrue(Files.isDirectory(workspace));
+        manager.close();
+        assertFalse(Files.exists(workspace));
+    }
+}
@@ -0,0 +1,84 @@
+package com.sta.util;
+
+import com.sta.util.LineCounter.LineStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the comment and string state machine of {@link LineCounter}.
+ */
+class LineCounterTest {
+
+    private static LineStats count(String source) throws IOException {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        return new LineCounter().count(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    private static void assertStats(LineStats stats, int total, int blank, int comment, int code) {
+        assertEquals(total, stats.totalLines(), "total");
+        assertEquals(blank, stats.blankLines(), "blank");
+        assertEquals(comment, stats.commentLines(), "comment");
+        assertEquals(code, stats.codeLines(), "code");
+    }
+
+    @Test
+    void testEmptyInput() throws IOException {
+        assertStats(count(""), 0, 0, 0, 0);
+    }
+
+    @Test
+    void testLastLineWithoutNewline() throws IOException {
+        assertStats(count("int a;\nint b;"), 2, 0, 0, 2);
+    }
+
+    @Test
+    void testBlankLinesWithWhitespace() throws IOException {
+        assertStats(count("  \t\r\n\r\nint a;\r\n"), 3, 2, 0, 1);
+    }
+
+    @Test
+    void testLineComments() throws IOException {
+        assertStats(count("// comment\nint a; // trailing\n"), 2, 0, 1, 1);
+    }
+
+    @Test
+    void testBlockCommentOverSeveralLines() throws IOException {
+        assertStats(count("/*\n * doc\n\n */\nint a;\n"), 5, 1, 3, 1);
+    }
+
+    @Test
+    void testCodeAfterBlockCommentEnds() throws IOException {
+        assertStats(count("/* start\nend */ int a;\n"), 2, 0, 1, 1);
+    }
+
+    @Test
+    void testCommentMarkersInsideStrings() throws IOException {
+        assertStats(count("String s = \"// not a comment\";\nString t = \"/* nor this\";\nint a;\n"), 3, 0, 0, 3);
+    }
+
+    @Test
+    void testEscapedQuoteInString() throws IOException {
+        assertStats(count("String s = \"a\\\" // still string\";\n// comment\n"), 2, 0, 1, 1);
+    }
+
+    @Test
+    void testCharLiteralWithSlash() throws IOException {
+        assertStats(count("char c = '/';\n// comment\n"), 2, 0, 1, 1);
+    }
+
+    @Test
+    void testUnterminatedStringEndsWithLine() throws IOException {
+        assertStats(count("String s = \"open\n// comment\n"), 2, 0, 1, 1);
+    }
+
+    @Test
+    void testDivisionIsCode() throws IOException {
+        assertStats(count("a = b / c;\n/\n"), 2, 0, 0, 2);
+    }
+}